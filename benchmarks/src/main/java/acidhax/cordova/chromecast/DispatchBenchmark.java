@@ -0,0 +1,198 @@
+package acidhax.cordova.chromecast;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * How long it takes execute() to get from an action name to the code that runs it - the action table
+ * against the getMethods() scan Chromecast.execute used to do on every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+	private ChromecastActionRegistry actions;
+	private Actions target;
+	private CordovaWebView webView;
+	private JSONArray volumeArgs;
+	private JSONArray messageArgs;
+	
+	/*
+	 * A handful of plugin-shaped actions, for the reflective lookup to search through
+	 */
+	public static class Actions {
+		public boolean setup(CallbackContext callbackContext) {
+			callbackContext.success();
+			return true;
+		}
+		
+		public boolean setReceiverVolumeLevel(Double volume, CallbackContext callbackContext) {
+			callbackContext.success();
+			return true;
+		}
+		
+		public boolean setReceiverVolumeLevel(Integer volume, CallbackContext callbackContext) {
+			return this.setReceiverVolumeLevel(volume.doubleValue(), callbackContext);
+		}
+		
+		public boolean setReceiverMuted(Boolean muted, CallbackContext callbackContext) {
+			callbackContext.success();
+			return true;
+		}
+		
+		public boolean sendMessage(String namespace, String message, CallbackContext callbackContext) {
+			callbackContext.success();
+			return true;
+		}
+		
+		public boolean mediaSeek(Integer seekTime, String resumeState, CallbackContext callbackContext) {
+			callbackContext.success();
+			return true;
+		}
+		
+		public boolean mediaPlay(CallbackContext callbackContext) {
+			callbackContext.success();
+			return true;
+		}
+		
+		public boolean mediaPause(CallbackContext callbackContext) {
+			callbackContext.success();
+			return true;
+		}
+		
+		public boolean mediaStop(CallbackContext callbackContext) {
+			callbackContext.success();
+			return true;
+		}
+	}
+	
+	@Setup
+	public void setup(final Blackhole blackhole) throws JSONException {
+		this.target = new Actions();
+		this.webView = new CordovaWebView() {
+			public void sendPluginResult(PluginResult pluginResult, String callbackId) {
+				blackhole.consume(pluginResult);
+			}
+		};
+		
+		this.actions = new ChromecastActionRegistry();
+		this.actions.register("setup", 0, new ChromecastAction() {
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				DispatchBenchmark.this.target.setup(callbackContext);
+			}
+		});
+		this.actions.register("setReceiverVolumeLevel", 1, new ChromecastAction() {
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				DispatchBenchmark.this.target.setReceiverVolumeLevel(args.getDouble(0), callbackContext);
+			}
+		});
+		this.actions.register("setReceiverMuted", 1, new ChromecastAction() {
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				DispatchBenchmark.this.target.setReceiverMuted(args.getBoolean(0), callbackContext);
+			}
+		});
+		this.actions.register("sendMessage", 2, new ChromecastAction() {
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				DispatchBenchmark.this.target.sendMessage(args.getString(0), args.getString(1), callbackContext);
+			}
+		});
+		this.actions.register("mediaSeek", 2, new ChromecastAction() {
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				DispatchBenchmark.this.target.mediaSeek(args.getInt(0), args.getString(1), callbackContext);
+			}
+		});
+		this.actions.register("mediaPlay", 0, new ChromecastAction() {
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				DispatchBenchmark.this.target.mediaPlay(callbackContext);
+			}
+		});
+		this.actions.register("mediaPause", 0, new ChromecastAction() {
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				DispatchBenchmark.this.target.mediaPause(callbackContext);
+			}
+		});
+		this.actions.register("mediaStop", 0, new ChromecastAction() {
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				DispatchBenchmark.this.target.mediaStop(callbackContext);
+			}
+		});
+		
+		this.volumeArgs = new JSONArray("[0.5]");
+		this.messageArgs = new JSONArray("[\"urn:x-cast:com.example\",\"{\\\"type\\\":\\\"ping\\\"}\"]");
+	}
+	
+	@Benchmark
+	public boolean registryVolume() throws JSONException {
+		return this.actions.dispatch("setReceiverVolumeLevel", this.volumeArgs, new CallbackContext("1", this.webView));
+	}
+	
+	@Benchmark
+	public boolean registryMessage() throws JSONException {
+		return this.actions.dispatch("sendMessage", this.messageArgs, new CallbackContext("1", this.webView));
+	}
+	
+	@Benchmark
+	public boolean reflectiveVolume() throws Exception {
+		return this.reflectiveExecute("setReceiverVolumeLevel", this.volumeArgs, new CallbackContext("1", this.webView));
+	}
+	
+	@Benchmark
+	public boolean reflectiveMessage() throws Exception {
+		return this.reflectiveExecute("sendMessage", this.messageArgs, new CallbackContext("1", this.webView));
+	}
+	
+	/**
+	 * The lookup Chromecast.execute did before the action table
+	 */
+	private boolean reflectiveExecute(String action, JSONArray args, CallbackContext cbContext) throws Exception {
+		Method methodToExecute = null;
+		for (Method method : this.target.getClass().getMethods()) {
+			if (method.getName().equals(action)) {
+				Type[] types = method.getGenericParameterTypes();
+				if (args.length() + 1 == types.length) {
+					boolean isValid = true;
+					for (int i = 0; i < args.length(); i++) {
+						if (types[i] != args.get(i).getClass()) {
+							isValid = false;
+							break;
+						}
+					}
+					if (isValid) {
+						methodToExecute = method;
+						break;
+					}
+				}
+			}
+		}
+		if (methodToExecute == null) {
+			return false;
+		}
+		Object[] variableArgs = new Object[methodToExecute.getGenericParameterTypes().length];
+		for (int i = 0; i < args.length(); i++) {
+			variableArgs[i] = args.get(i);
+		}
+		variableArgs[variableArgs.length - 1] = cbContext;
+		return (Boolean) methodToExecute.invoke(this.target, variableArgs);
+	}
+}
@@ -0,0 +1,136 @@
+package acidhax.cordova.chromecast;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.android.gms.cast.MediaInfo;
+import com.google.android.gms.cast.MediaStatus;
+
+/*
+ * One media status tick, from MediaStatus to the text that goes down the event channel - the status writer
+ * and delta encoder against the JSONObject tree createMediaObject used to build.
+ * The position moves on every tick, the way it does while something plays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaStatusBenchmark {
+	private static final String SESSION_ID = "E0A4A5D5-5C7B-4E2B-9F0E-3A3B1B1F6C2D";
+	
+	private MediaStatus status;
+	private ChromecastMediaStatusWriter writer;
+	private ChromecastDeltaEncoder deltas;
+	private long position;
+	
+	@Setup
+	public void setup() throws JSONException {
+		this.status = new MediaStatus(new MediaInfo(596000, MediaInfo.STREAM_TYPE_BUFFERED));
+		this.status.setStreamVolume(0.75);
+		this.status.setCustomData(new JSONObject("{\"title\":\"Big Buck Bunny\",\"chapter\":3}"));
+		this.writer = new ChromecastMediaStatusWriter();
+		this.deltas = new ChromecastDeltaEncoder();
+	}
+	
+	private MediaStatus tick() {
+		this.position = (this.position + 1000) % 596000;
+		this.status.setStreamPosition(this.position);
+		return this.status;
+	}
+	
+	@Benchmark
+	public String writerFull() {
+		return this.writer.write(this.tick(), SESSION_ID).toJSON();
+	}
+	
+	@Benchmark
+	public String writerDelta() {
+		ChromecastMediaUpdate update = this.writer.write(this.tick(), SESSION_ID);
+		return this.deltas.encode("media:" + SESSION_ID, SESSION_ID, ChromecastMediaStatusWriter.FIELDS, update.getValues());
+	}
+	
+	@Benchmark
+	public String jsonObjectTree() {
+		return "chrome.cast._.mediaUpdated(" + createMediaObject(this.tick(), SESSION_ID).toString() + ");";
+	}
+	
+	/**
+	 * What ChromecastSession.createMediaObject built before the status writer
+	 */
+	private static JSONObject createMediaObject(MediaStatus mediaStatus, String sessionId) {
+		return createMediaObject(mediaStatus, sessionId, new JSONObject(), new JSONObject(), new JSONObject());
+	}
+	
+	/**
+	 * The same, filling in the objects it is given - ChromecastMediaStatusWriterTest hands it ones that keep
+	 * their fields in order, the way Android's JSONObject does
+	 */
+	static JSONObject createMediaObject(MediaStatus mediaStatus, String sessionId, JSONObject out, JSONObject objInfo, JSONObject volume) {
+		MediaInfo mediaInfo = mediaStatus.getMediaInfo();
+		try {
+			out.put("media", objInfo);
+			out.put("mediaSessionId", 1);
+			out.put("sessionId", sessionId);
+			out.put("currentTime", mediaStatus.getStreamPosition() / 1000.0);
+			out.put("playbackRate", mediaStatus.getPlaybackRate());
+			out.put("customData", mediaStatus.getCustomData());
+			
+			switch(mediaStatus.getPlayerState()) {
+				case MediaStatus.PLAYER_STATE_BUFFERING:
+					out.put("playerState", "BUFFERING"); break;
+				case MediaStatus.PLAYER_STATE_IDLE:
+					out.put("playerState", "IDLE"); break;
+				case MediaStatus.PLAYER_STATE_PAUSED:
+					out.put("playerState", "PAUSED"); break;
+				case MediaStatus.PLAYER_STATE_PLAYING:
+					out.put("playerState", "PLAYING"); break;
+				case MediaStatus.PLAYER_STATE_UNKNOWN:
+					out.put("playerState", "UNKNOWN"); break;
+			}
+			
+			switch(mediaStatus.getIdleReason()) {
+				case MediaStatus.IDLE_REASON_CANCELED:
+					out.put("idleReason", "canceled"); break;
+				case MediaStatus.IDLE_REASON_ERROR:
+					out.put("idleReason", "error"); break;
+				case MediaStatus.IDLE_REASON_FINISHED:
+					out.put("idleReason", "finished"); break;
+				case MediaStatus.IDLE_REASON_INTERRUPTED:
+					out.put("idleReason", "iterrupted"); break;
+				case MediaStatus.IDLE_REASON_NONE:
+					out.put("idleReason", "none"); break;
+			}
+			
+			volume.put("level", mediaStatus.getStreamVolume());
+			volume.put("muted", mediaStatus.isMute());
+			out.put("volume", volume);
+			
+			objInfo.put("duration", mediaInfo.getStreamDuration() / 1000.0);
+			switch(mediaInfo.getStreamType()) {
+				case MediaInfo.STREAM_TYPE_BUFFERED:
+					objInfo.put("streamType", "buffered"); break;
+				case MediaInfo.STREAM_TYPE_LIVE:
+					objInfo.put("streamType", "live"); break;
+				case MediaInfo.STREAM_TYPE_NONE:
+					objInfo.put("streamType", "other"); break;
+			}
+		} catch (JSONException e) {
+			throw new IllegalStateException(e);
+		}
+		return out;
+	}
+}
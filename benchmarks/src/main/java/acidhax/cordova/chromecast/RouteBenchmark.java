@@ -0,0 +1,85 @@
+package acidhax.cordova.chromecast;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.android.gms.cast.CastDevice;
+
+import android.os.Bundle;
+import android.support.v7.media.MediaRouter.RouteInfo;
+
+/*
+ * Route emission - classifying a route that turned up, and the diff javascript gets for it - against the
+ * JSONObject routeToJSON built for every routeAdded before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteBenchmark {
+	private RouteInfo[] routes;
+	private ChromecastRoute[] classified;
+	private ChromecastRouteSet routeSet;
+	private int next;
+	
+	@Setup
+	public void setup() {
+		// Two versions of the same receiver, renamed back and forth so every add is a change
+		this.routes = new RouteInfo[] { route("Living Room TV"), route("Kitchen") };
+		this.classified = new ChromecastRoute[] { new ChromecastRoute(this.routes[0]), new ChromecastRoute(this.routes[1]) };
+		this.routeSet = new ChromecastRouteSet();
+	}
+	
+	private static RouteInfo route(String name) {
+		Bundle extras = new Bundle();
+		new CastDevice("2b6f0cc904d137be2e1730235f5664094b831186", name, "Chromecast", "04",
+				CastDevice.CAPABILITY_VIDEO_OUT | CastDevice.CAPABILITY_AUDIO_OUT).putInBundle(extras);
+		return new RouteInfo("com.google.android.gms/.cast.media.CastMediaRouteProviderService:2b6f0cc904d137be2e1730235f5664094b831186", name, extras);
+	}
+	
+	@Benchmark
+	public String classify() {
+		this.next ^= 1;
+		return new ChromecastRoute(this.routes[this.next]).toJSON();
+	}
+	
+	@Benchmark
+	public String routeSetDiff() {
+		this.next ^= 1;
+		return this.routeSet.add(this.classified[this.next]);
+	}
+	
+	@Benchmark
+	public String routeToJSON() {
+		this.next ^= 1;
+		return "chrome.cast._.routeAdded(" + routeToJSON(this.routes[this.next]) + ")";
+	}
+	
+	/**
+	 * What Chromecast.routeToJSON built before routes were classified once
+	 */
+	private static JSONObject routeToJSON(RouteInfo route) {
+		JSONObject obj = new JSONObject();
+		try {
+			obj.put("name", route.getName());
+			obj.put("id", route.getId());
+		} catch (JSONException e) {
+			throw new IllegalStateException(e);
+		}
+		return obj;
+	}
+}
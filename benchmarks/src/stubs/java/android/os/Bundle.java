@@ -0,0 +1,18 @@
+package android.os;
+
+import java.util.HashMap;
+
+/*
+ * Stand-in for android.os.Bundle - a plain map is all the route code uses it as.
+ */
+public class Bundle {
+	private HashMap<String, Object> values = new HashMap<String, Object>();
+	
+	public Object get(String key) {
+		return this.values.get(key);
+	}
+	
+	public void put(String key, Object value) {
+		this.values.put(key, value);
+	}
+}
@@ -0,0 +1,29 @@
+package android.os;
+
+/*
+ * Stand-in for android.os.Handler - posted work waits on the Looper until a test runs it.
+ */
+public class Handler {
+	private Looper looper;
+	
+	public Handler() {
+		this(Looper.myLooper());
+	}
+	
+	public Handler(Looper looper) {
+		this.looper = looper;
+	}
+	
+	public final boolean post(Runnable r) {
+		return this.postDelayed(r, 0);
+	}
+	
+	public final boolean postDelayed(Runnable r, long delayMillis) {
+		this.looper.enqueue(this, r, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+		return true;
+	}
+	
+	public final void removeCallbacks(Runnable r) {
+		this.looper.remove(this, r);
+	}
+}
@@ -0,0 +1,89 @@
+package android.os;
+
+import java.util.ArrayList;
+
+/*
+ * Stand-in for android.os.Looper - there is only the main looper, and nothing runs on it until a test calls
+ * idleFor, which moves SystemClock on and runs whatever Handler work falls due on the way.
+ */
+public final class Looper {
+	private static final Looper MAIN = new Looper();
+	
+	private static class Task {
+		final Handler handler;
+		final Runnable runnable;
+		final long when;
+		
+		Task(Handler handler, Runnable runnable, long when) {
+			this.handler = handler;
+			this.runnable = runnable;
+			this.when = when;
+		}
+	}
+	
+	private ArrayList<Task> tasks = new ArrayList<Task>();
+	
+	private Looper() {
+	}
+	
+	public static Looper getMainLooper() {
+		return MAIN;
+	}
+	
+	public static Looper myLooper() {
+		return MAIN;
+	}
+	
+	/**
+	 * Not in Android - moves the clock on, running due work in time order as it goes
+	 * @param ms
+	 */
+	public void idleFor(long ms) {
+		long until = SystemClock.now + ms;
+		while (true) {
+			Task next = null;
+			synchronized (this) {
+				for (Task task : this.tasks) {
+					if (task.when <= until && (next == null || task.when < next.when)) {
+						next = task;
+					}
+				}
+				if (next == null) {
+					break;
+				}
+				this.tasks.remove(next);
+				SystemClock.now = Math.max(SystemClock.now, next.when);
+			}
+			next.runnable.run();
+		}
+		SystemClock.now = until;
+	}
+	
+	/**
+	 * Not in Android - how much work is waiting
+	 * @return
+	 */
+	public synchronized int getPendingCount() {
+		return this.tasks.size();
+	}
+	
+	/**
+	 * Not in Android - drops whatever an earlier test left behind
+	 */
+	public synchronized void reset() {
+		this.tasks.clear();
+	}
+	
+	synchronized void enqueue(Handler handler, Runnable runnable, long when) {
+		this.tasks.add(new Task(handler, runnable, when));
+	}
+	
+	synchronized void remove(Handler handler, Runnable runnable) {
+		for (int i = this.tasks.size() - 1; i >= 0; i--) {
+			Task task = this.tasks.get(i);
+			if (task.handler == handler && task.runnable == runnable) {
+				this.tasks.remove(i);
+			}
+		}
+	}
+}
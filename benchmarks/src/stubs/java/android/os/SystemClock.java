@@ -0,0 +1,20 @@
+package android.os;
+
+/*
+ * Stand-in for android.os.SystemClock - a clock that only moves when Looper.idleFor moves it, so tests
+ * don't have to wait for timeouts.
+ */
+public final class SystemClock {
+	static long now = 0;
+	
+	private SystemClock() {
+	}
+	
+	public static long elapsedRealtime() {
+		return now;
+	}
+	
+	public static long uptimeMillis() {
+		return now;
+	}
+}
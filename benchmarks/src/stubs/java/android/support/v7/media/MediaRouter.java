@@ -0,0 +1,32 @@
+package android.support.v7.media;
+
+import android.os.Bundle;
+
+/*
+ * Stand-in for the support library MediaRouter - only RouteInfo, which the benchmarks build directly.
+ */
+public class MediaRouter {
+	public static class RouteInfo {
+		private String id;
+		private String name;
+		private Bundle extras;
+		
+		public RouteInfo(String id, String name, Bundle extras) {
+			this.id = id;
+			this.name = name;
+			this.extras = extras;
+		}
+		
+		public String getId() {
+			return this.id;
+		}
+		
+		public String getName() {
+			return this.name;
+		}
+		
+		public Bundle getExtras() {
+			return this.extras;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.google.android.gms.cast;
+
+import android.os.Bundle;
+
+/*
+ * Stand-in for the Play Services CastDevice, kept in a route's extras the way the real one is.
+ */
+public class CastDevice {
+	public static final int CAPABILITY_VIDEO_OUT = 1;
+	public static final int CAPABILITY_VIDEO_IN = 2;
+	public static final int CAPABILITY_AUDIO_OUT = 4;
+	public static final int CAPABILITY_AUDIO_IN = 8;
+	
+	private static final String EXTRA_KEY = "com.google.android.gms.cast.EXTRA_CAST_DEVICE";
+	
+	private String deviceId;
+	private String friendlyName;
+	private String modelName;
+	private String deviceVersion;
+	private int capabilities;
+	
+	public CastDevice(String deviceId, String friendlyName, String modelName, String deviceVersion, int capabilities) {
+		this.deviceId = deviceId;
+		this.friendlyName = friendlyName;
+		this.modelName = modelName;
+		this.deviceVersion = deviceVersion;
+		this.capabilities = capabilities;
+	}
+	
+	public static CastDevice getFromBundle(Bundle extras) {
+		return extras != null ? (CastDevice) extras.get(EXTRA_KEY) : null;
+	}
+	
+	public void putInBundle(Bundle extras) {
+		extras.put(EXTRA_KEY, this);
+	}
+	
+	public String getDeviceId() {
+		return this.deviceId;
+	}
+	
+	public String getFriendlyName() {
+		return this.friendlyName;
+	}
+	
+	public String getModelName() {
+		return this.modelName;
+	}
+	
+	public String getDeviceVersion() {
+		return this.deviceVersion;
+	}
+	
+	public boolean hasCapability(int capability) {
+		return (this.capabilities & capability) == capability;
+	}
+}
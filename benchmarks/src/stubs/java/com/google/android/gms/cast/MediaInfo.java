@@ -0,0 +1,27 @@
+package com.google.android.gms.cast;
+
+/*
+ * Stand-in for the Play Services MediaInfo - just the fields the status writer reads.
+ */
+public class MediaInfo {
+	public static final int STREAM_TYPE_INVALID = -1;
+	public static final int STREAM_TYPE_NONE = 0;
+	public static final int STREAM_TYPE_BUFFERED = 1;
+	public static final int STREAM_TYPE_LIVE = 2;
+	
+	private long streamDuration;
+	private int streamType;
+	
+	public MediaInfo(long streamDuration, int streamType) {
+		this.streamDuration = streamDuration;
+		this.streamType = streamType;
+	}
+	
+	public long getStreamDuration() {
+		return this.streamDuration;
+	}
+	
+	public int getStreamType() {
+		return this.streamType;
+	}
+}
@@ -0,0 +1,93 @@
+package com.google.android.gms.cast;
+
+import org.json.JSONObject;
+
+/*
+ * Stand-in for the Play Services MediaStatus with settable fields, so a benchmark can tick it like a receiver.
+ */
+public class MediaStatus {
+	public static final int PLAYER_STATE_UNKNOWN = 0;
+	public static final int PLAYER_STATE_IDLE = 1;
+	public static final int PLAYER_STATE_PLAYING = 2;
+	public static final int PLAYER_STATE_PAUSED = 3;
+	public static final int PLAYER_STATE_BUFFERING = 4;
+	
+	public static final int IDLE_REASON_NONE = 0;
+	public static final int IDLE_REASON_FINISHED = 1;
+	public static final int IDLE_REASON_CANCELED = 2;
+	public static final int IDLE_REASON_INTERRUPTED = 3;
+	public static final int IDLE_REASON_ERROR = 4;
+	
+	private MediaInfo mediaInfo;
+	private long streamPosition;
+	private double playbackRate = 1;
+	private JSONObject customData;
+	private int playerState = PLAYER_STATE_PLAYING;
+	private int idleReason = IDLE_REASON_NONE;
+	private double streamVolume = 1;
+	private boolean mute;
+	
+	public MediaStatus(MediaInfo mediaInfo) {
+		this.mediaInfo = mediaInfo;
+	}
+	
+	public MediaInfo getMediaInfo() {
+		return this.mediaInfo;
+	}
+	
+	public long getStreamPosition() {
+		return this.streamPosition;
+	}
+	
+	public void setStreamPosition(long streamPosition) {
+		this.streamPosition = streamPosition;
+	}
+	
+	public double getPlaybackRate() {
+		return this.playbackRate;
+	}
+	
+	public void setPlaybackRate(double playbackRate) {
+		this.playbackRate = playbackRate;
+	}
+	
+	public JSONObject getCustomData() {
+		return this.customData;
+	}
+	
+	public void setCustomData(JSONObject customData) {
+		this.customData = customData;
+	}
+	
+	public int getPlayerState() {
+		return this.playerState;
+	}
+	
+	public void setPlayerState(int playerState) {
+		this.playerState = playerState;
+	}
+	
+	public int getIdleReason() {
+		return this.idleReason;
+	}
+	
+	public void setIdleReason(int idleReason) {
+		this.idleReason = idleReason;
+	}
+	
+	public double getStreamVolume() {
+		return this.streamVolume;
+	}
+	
+	public void setStreamVolume(double streamVolume) {
+		this.streamVolume = streamVolume;
+	}
+	
+	public boolean isMute() {
+		return this.mute;
+	}
+	
+	public void setMute(boolean mute) {
+		this.mute = mute;
+	}
+}
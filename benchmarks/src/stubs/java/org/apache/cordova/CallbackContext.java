@@ -0,0 +1,68 @@
+package org.apache.cordova;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/*
+ * Stand-in for Cordova's CallbackContext - answers once, unless the result keeps the callback.
+ */
+public class CallbackContext {
+	private String callbackId;
+	private CordovaWebView webView;
+	private boolean finished;
+	
+	public CallbackContext(String callbackId, CordovaWebView webView) {
+		this.callbackId = callbackId;
+		this.webView = webView;
+	}
+	
+	public boolean isFinished() {
+		return this.finished;
+	}
+	
+	public String getCallbackId() {
+		return this.callbackId;
+	}
+	
+	public void sendPluginResult(PluginResult pluginResult) {
+		synchronized (this) {
+			if (this.finished) {
+				return;
+			}
+			this.finished = !pluginResult.getKeepCallback();
+		}
+		this.webView.sendPluginResult(pluginResult, this.callbackId);
+	}
+	
+	public void success(JSONObject message) {
+		this.sendPluginResult(new PluginResult(PluginResult.Status.OK, message));
+	}
+	
+	public void success(String message) {
+		this.sendPluginResult(new PluginResult(PluginResult.Status.OK, message));
+	}
+	
+	public void success(JSONArray message) {
+		this.sendPluginResult(new PluginResult(PluginResult.Status.OK, message));
+	}
+	
+	public void success(int message) {
+		this.sendPluginResult(new PluginResult(PluginResult.Status.OK, message));
+	}
+	
+	public void success() {
+		this.sendPluginResult(new PluginResult(PluginResult.Status.OK));
+	}
+	
+	public void error(JSONObject message) {
+		this.sendPluginResult(new PluginResult(PluginResult.Status.ERROR, message));
+	}
+	
+	public void error(String message) {
+		this.sendPluginResult(new PluginResult(PluginResult.Status.ERROR, message));
+	}
+	
+	public void error(int message) {
+		this.sendPluginResult(new PluginResult(PluginResult.Status.ERROR, message));
+	}
+}
@@ -0,0 +1,8 @@
+package org.apache.cordova;
+
+/*
+ * Stand-in for the Cordova web view - only what CallbackContext needs to hand a result over.
+ */
+public interface CordovaWebView {
+	void sendPluginResult(PluginResult pluginResult, String callbackId);
+}
@@ -0,0 +1,77 @@
+package org.apache.cordova;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/*
+ * Stand-in for Cordova's PluginResult - encodes its message the same way, so result handling costs the same.
+ */
+public class PluginResult {
+	public enum Status {
+		NO_RESULT,
+		OK,
+		CLASS_NOT_FOUND_EXCEPTION,
+		ILLEGAL_ACCESS_EXCEPTION,
+		INSTANTIATION_EXCEPTION,
+		MALFORMED_URL_EXCEPTION,
+		IO_EXCEPTION,
+		INVALID_ACTION,
+		JSON_EXCEPTION,
+		ERROR
+	}
+	
+	private final int status;
+	private final String encodedMessage;
+	private boolean keepCallback = false;
+	
+	public PluginResult(Status status) {
+		this.status = status.ordinal();
+		this.encodedMessage = "null";
+	}
+	
+	public PluginResult(Status status, String message) {
+		this.status = status.ordinal();
+		this.encodedMessage = message == null ? "null" : JSONObject.quote(message);
+	}
+	
+	public PluginResult(Status status, JSONObject message) {
+		this.status = status.ordinal();
+		this.encodedMessage = message.toString();
+	}
+	
+	public PluginResult(Status status, JSONArray message) {
+		this.status = status.ordinal();
+		this.encodedMessage = message.toString();
+	}
+	
+	public PluginResult(Status status, int i) {
+		this.status = status.ordinal();
+		this.encodedMessage = "" + i;
+	}
+	
+	public PluginResult(Status status, float f) {
+		this.status = status.ordinal();
+		this.encodedMessage = "" + f;
+	}
+	
+	public PluginResult(Status status, boolean b) {
+		this.status = status.ordinal();
+		this.encodedMessage = Boolean.toString(b);
+	}
+	
+	public void setKeepCallback(boolean b) {
+		this.keepCallback = b;
+	}
+	
+	public boolean getKeepCallback() {
+		return this.keepCallback;
+	}
+	
+	public int getStatus() {
+		return this.status;
+	}
+	
+	public String getMessage() {
+		return this.encodedMessage;
+	}
+}
@@ -0,0 +1,109 @@
+package acidhax.cordova.chromecast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.android.gms.cast.MediaInfo;
+import com.google.android.gms.cast.MediaStatus;
+
+/*
+ * The updates the encoder writes for a session and its media. tests/tests.js feeds these exact strings
+ * to chrome.cast._ to check the javascript merge, so the two sides have to change together.
+ */
+public class ChromecastDeltaEncoderTest {
+	private static final String SESSION_ID = "delta-test";
+	private static final String SESSION_KEY = "session:" + SESSION_ID;
+	private static final String MEDIA_KEY = "media:" + SESSION_ID;
+	private static final String[] SESSION_FIELDS = { "appId", "displayName", "statusText" };
+	
+	private ChromecastDeltaEncoder encoder;
+	
+	@Before
+	public void setUp() {
+		this.encoder = new ChromecastDeltaEncoder();
+	}
+	
+	/**
+	 * Encodes a session object - a null field is left out
+	 */
+	private String session(String appId, String displayName, String statusText) {
+		String[] values = { appId, displayName, statusText };
+		for (int i = 0; i < values.length; i++) {
+			values[i] = values[i] != null ? JSONObject.quote(values[i]) : null;
+		}
+		return this.encoder.encode(SESSION_KEY, SESSION_ID, SESSION_FIELDS, values);
+	}
+	
+	@Test
+	public void firstUpdateIsFull() {
+		assertEquals("{\"data\":{\"appId\":\"A\",\"displayName\":\"One\",\"statusText\":\"x\"},\"sessionId\":\"delta-test\",\"version\":1,\"full\":true}",
+			this.session("A", "One", "x"));
+	}
+	
+	@Test
+	public void changedField() {
+		this.session("A", "One", "x");
+		assertEquals("{\"changes\":{\"displayName\":\"Two\"},\"sessionId\":\"delta-test\",\"version\":2,\"full\":false}",
+			this.session("A", "Two", "x"));
+	}
+	
+	@Test
+	public void removedField() {
+		this.session("A", "One", "x");
+		this.session("A", "Two", "x");
+		assertEquals("{\"changes\":{},\"removed\":[\"statusText\"],\"sessionId\":\"delta-test\",\"version\":3,\"full\":false}",
+			this.session("A", "Two", null));
+	}
+	
+	@Test
+	public void unchangedIsNotSent() {
+		this.session("A", "One", null);
+		assertNull(this.session("A", "One", null));
+	}
+	
+	@Test
+	public void resyncAfterGap() {
+		this.session("A", "One", "x");
+		this.session("A", "Two", "x");
+		this.session("A", "Two", null);
+		// Version 4 is the one javascript misses
+		assertEquals("{\"changes\":{\"statusText\":\"y\"},\"sessionId\":\"delta-test\",\"version\":4,\"full\":false}",
+			this.session("A", "Two", "y"));
+		assertEquals("{\"changes\":{\"displayName\":\"Three\"},\"sessionId\":\"delta-test\",\"version\":5,\"full\":false}",
+			this.session("A", "Three", "y"));
+		// ...so it asks for requestFullUpdate
+		assertEquals("{\"data\":{\"appId\":\"A\",\"displayName\":\"Three\",\"statusText\":\"y\"},\"sessionId\":\"delta-test\",\"version\":6,\"full\":true}",
+			this.encoder.resync(SESSION_KEY, SESSION_ID));
+	}
+	
+	@Test
+	public void resetForcesFull() {
+		this.session("A", null, null);
+		this.encoder.reset(SESSION_KEY);
+		assertEquals("{\"data\":{\"appId\":\"A\"},\"sessionId\":\"delta-test\",\"version\":2,\"full\":true}",
+			this.session("A", null, null));
+	}
+	
+	@Test
+	public void sessionAndMediaKeepSeparateVersions() {
+		for (int i = 1; i <= 3; i++) {
+			this.session("A", null, Integer.toString(i));
+		}
+		
+		MediaStatus status = new MediaStatus(new MediaInfo(596000, MediaInfo.STREAM_TYPE_BUFFERED));
+		ChromecastMediaStatusWriter writer = new ChromecastMediaStatusWriter();
+		assertEquals("{\"data\":{\"media\":{\"duration\":596,\"streamType\":\"buffered\"},\"mediaSessionId\":1,\"sessionId\":\"delta-test\",\"currentTime\":0,\"playbackRate\":1,\"playerState\":\"PLAYING\",\"idleReason\":\"none\",\"volume\":{\"level\":1,\"muted\":false}},\"sessionId\":\"delta-test\",\"version\":1,\"full\":true}",
+			this.encoder.encode(MEDIA_KEY, SESSION_ID, ChromecastMediaStatusWriter.FIELDS, writer.write(status, SESSION_ID).getValues()));
+		
+		status.setStreamPosition(10500);
+		assertEquals("{\"changes\":{\"currentTime\":10.5},\"sessionId\":\"delta-test\",\"version\":2,\"full\":false}",
+			this.encoder.encode(MEDIA_KEY, SESSION_ID, ChromecastMediaStatusWriter.FIELDS, writer.write(status, SESSION_ID).getValues()));
+		
+		assertEquals("{\"changes\":{\"statusText\":\"4\"},\"sessionId\":\"delta-test\",\"version\":4,\"full\":false}",
+			this.session("A", null, "4"));
+	}
+}
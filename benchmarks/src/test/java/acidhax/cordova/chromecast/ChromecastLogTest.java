@@ -0,0 +1,121 @@
+package acidhax.cordova.chromecast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChromecastLogTest {
+	private ChromecastLog log;
+	private ArrayList<PluginResult> streamed;
+	private CallbackContext stream;
+	
+	@Before
+	public void setUp() {
+		this.log = new ChromecastLog();
+		this.streamed = new ArrayList<PluginResult>();
+		this.stream = new CallbackContext("stream", new CordovaWebView() {
+			public void sendPluginResult(PluginResult pluginResult, String callbackId) {
+				ChromecastLogTest.this.streamed.add(pluginResult);
+			}
+		});
+	}
+	
+	private static void assertMessages(JSONArray entries, String... messages) throws JSONException {
+		assertEquals(messages.length, entries.length());
+		for (int i = 0; i < messages.length; i++) {
+			assertEquals(messages[i], entries.getJSONObject(i).getString("message"));
+		}
+	}
+	
+	@Test
+	public void wrapsKeepingTheNewestInOrder() throws JSONException {
+		for (int i = 0; i < 300; i++) {
+			this.log.log(ChromecastLog.INFO, "entry %d", i);
+		}
+		JSONArray entries = this.log.getEntries(-1);
+		assertEquals(256, entries.length());
+		for (int i = 0; i < entries.length(); i++) {
+			assertEquals(44 + i, entries.getJSONObject(i).getLong("seq"));
+			assertEquals("entry " + (44 + i), entries.getJSONObject(i).getString("message"));
+		}
+		
+		// Only what came after the last seen entry
+		assertMessages(this.log.getEntries(297), "entry 298", "entry 299");
+		// An entry that has been overwritten is simply gone
+		assertEquals(256, this.log.getEntries(10).length());
+	}
+	
+	@Test
+	public void dropsBelowTheLevel() throws JSONException {
+		this.log.setLevel(ChromecastLog.WARN);
+		this.log.log(ChromecastLog.INFO, "info");
+		this.log.log(ChromecastLog.WARN, "warn");
+		this.log.log(ChromecastLog.ERROR, "error");
+		assertFalse(this.log.isLoggable(ChromecastLog.INFO));
+		assertMessages(this.log.getEntries(-1), "warn", "error");
+		assertMessages(this.log.getEntries(-1, ChromecastLog.ERROR), "error");
+	}
+	
+	@Test
+	public void streamFiltersByItsLevel() throws JSONException {
+		for (int i = 0; i < 300; i++) {
+			this.log.log(i % 2 == 0 ? ChromecastLog.INFO : ChromecastLog.WARN, "entry %d", i);
+		}
+		this.log.stream(ChromecastLog.WARN, this.stream);
+		
+		// The first result is what's buffered at or above the stream's level, oldest first
+		assertEquals(1, this.streamed.size());
+		assertTrue(this.streamed.get(0).getKeepCallback());
+		JSONArray first = new JSONArray(this.streamed.get(0).getMessage());
+		assertEquals(128, first.length());
+		assertEquals("entry 45", first.getJSONObject(0).getString("message"));
+		assertEquals("entry 299", first.getJSONObject(127).getString("message"));
+		
+		this.log.log(ChromecastLog.INFO, "not streamed");
+		this.log.log(ChromecastLog.ERROR, "streamed");
+		assertEquals(2, this.streamed.size());
+		assertMessages(new JSONArray(this.streamed.get(1).getMessage()), "streamed");
+		// ...but both were kept
+		assertMessages(this.log.getEntries(299), "not streamed", "streamed");
+		
+		this.log.stream(ChromecastLog.NONE, this.stream);
+		this.log.log(ChromecastLog.ERROR, "after the stream stopped");
+		assertEquals(3, this.streamed.size());
+		assertFalse(this.streamed.get(2).getKeepCallback());
+	}
+	
+	@Test
+	public void streamKeepsEntriesBelowTheBufferLevel() throws JSONException {
+		this.log.setLevel(ChromecastLog.ERROR);
+		this.log.stream(ChromecastLog.DEBUG, this.stream);
+		this.log.log(ChromecastLog.DEBUG, "debug");
+		assertTrue(this.log.isLoggable(ChromecastLog.DEBUG));
+		assertMessages(this.log.getEntries(-1), "debug");
+		assertEquals(2, this.streamed.size());
+	}
+	
+	@Test
+	public void argumentsAreTakenWhenLogged() throws JSONException {
+		StringBuilder state = new StringBuilder("before");
+		this.log.log(ChromecastLog.INFO, "state %s, count %d", state, 3);
+		state.setLength(0);
+		state.append("after");
+		assertMessages(this.log.getEntries(-1), "state before, count 3");
+	}
+	
+	@Test
+	public void badFormatFallsBackToTheFormat() throws JSONException {
+		this.log.log(ChromecastLog.INFO, "count %d", "not a number");
+		assertMessages(this.log.getEntries(-1), "count %d");
+	}
+}
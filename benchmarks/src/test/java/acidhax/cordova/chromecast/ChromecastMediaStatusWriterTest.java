@@ -0,0 +1,149 @@
+package acidhax.cordova.chromecast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.google.android.gms.cast.MediaInfo;
+import com.google.android.gms.cast.MediaStatus;
+
+/*
+ * The status writer has to write exactly what the old JSONObject based createMediaObject did, field order
+ * and the "iterrupted" spelling included - javascript and apps already parse that text.
+ */
+public class ChromecastMediaStatusWriterTest {
+	private static final String SESSION_ID = "E0A4A5D5-5C7B-4E2B-9F0E-3A3B1B1F6C2D";
+	
+	/*
+	 * Android's JSONObject writes fields in the order they were put, which is what createMediaObject sent.
+	 * The desktop build of org.json doesn't, so the baseline is built with these.
+	 */
+	private static class OrderedJSONObject extends JSONObject {
+		private LinkedHashMap<String, Object> fields = new LinkedHashMap<String, Object>();
+		
+		@Override
+		public JSONObject put(String name, Object value) throws JSONException {
+			super.put(name, value);
+			if (value == null) {
+				this.fields.remove(name);
+			} else {
+				this.fields.put(name, value);
+			}
+			return this;
+		}
+		
+		@Override
+		public JSONObject put(String name, boolean value) throws JSONException {
+			return this.put(name, (Object) value);
+		}
+		
+		@Override
+		public JSONObject put(String name, double value) throws JSONException {
+			return this.put(name, (Object) value);
+		}
+		
+		@Override
+		public JSONObject put(String name, int value) throws JSONException {
+			return this.put(name, (Object) value);
+		}
+		
+		@Override
+		public JSONObject put(String name, long value) throws JSONException {
+			return this.put(name, (Object) value);
+		}
+		
+		@Override
+		public String toString() {
+			StringBuilder out = new StringBuilder("{");
+			for (Map.Entry<String, Object> field : this.fields.entrySet()) {
+				if (out.length() > 1) {
+					out.append(',');
+				}
+				out.append(JSONObject.quote(field.getKey())).append(':');
+				if (field.getValue() instanceof OrderedJSONObject) {
+					out.append(field.getValue().toString());
+				} else {
+					// Whatever JSONObject itself writes for the value
+					String value = new JSONArray().put(field.getValue()).toString();
+					out.append(value, 1, value.length() - 1);
+				}
+			}
+			return out.append('}').toString();
+		}
+	}
+	
+	private static void assertSameAsBaseline(MediaStatus status) {
+		String expected = MediaStatusBenchmark.createMediaObject(status, SESSION_ID,
+			new OrderedJSONObject(), new OrderedJSONObject(), new OrderedJSONObject()).toString();
+		assertEquals(expected, new ChromecastMediaStatusWriter().write(status, SESSION_ID).toJSON());
+	}
+	
+	@Test
+	public void playing() throws JSONException {
+		MediaStatus status = new MediaStatus(new MediaInfo(596000, MediaInfo.STREAM_TYPE_BUFFERED));
+		status.setStreamPosition(12345);
+		status.setStreamVolume(0.75);
+		status.setCustomData(new JSONObject("{\"title\":\"Big Buck Bunny\",\"chapter\":3}"));
+		assertSameAsBaseline(status);
+	}
+	
+	@Test
+	public void pausedAndMuted() {
+		MediaStatus status = new MediaStatus(new MediaInfo(596000, MediaInfo.STREAM_TYPE_BUFFERED));
+		status.setPlayerState(MediaStatus.PLAYER_STATE_PAUSED);
+		status.setPlaybackRate(0.5);
+		status.setMute(true);
+		assertSameAsBaseline(status);
+	}
+	
+	@Test
+	public void idleWithReason() {
+		int[] reasons = {
+			MediaStatus.IDLE_REASON_NONE, MediaStatus.IDLE_REASON_FINISHED, MediaStatus.IDLE_REASON_CANCELED,
+			MediaStatus.IDLE_REASON_INTERRUPTED, MediaStatus.IDLE_REASON_ERROR
+		};
+		for (int reason : reasons) {
+			MediaStatus status = new MediaStatus(new MediaInfo(596000, MediaInfo.STREAM_TYPE_BUFFERED));
+			status.setPlayerState(MediaStatus.PLAYER_STATE_IDLE);
+			status.setIdleReason(reason);
+			status.setStreamPosition(596000);
+			assertSameAsBaseline(status);
+		}
+	}
+	
+	@Test
+	public void interruptedKeepsOldSpelling() {
+		MediaStatus status = new MediaStatus(new MediaInfo(596000, MediaInfo.STREAM_TYPE_BUFFERED));
+		status.setPlayerState(MediaStatus.PLAYER_STATE_IDLE);
+		status.setIdleReason(MediaStatus.IDLE_REASON_INTERRUPTED);
+		assertEquals("\"iterrupted\"", new ChromecastMediaStatusWriter().write(status, SESSION_ID).getValues()[7]);
+	}
+	
+	@Test
+	public void liveStream() {
+		MediaStatus status = new MediaStatus(new MediaInfo(-1, MediaInfo.STREAM_TYPE_LIVE));
+		status.setPlayerState(MediaStatus.PLAYER_STATE_BUFFERING);
+		status.setStreamPosition(3600000);
+		assertSameAsBaseline(status);
+	}
+	
+	@Test
+	public void otherAndInvalidStreamTypes() {
+		assertSameAsBaseline(new MediaStatus(new MediaInfo(0, MediaInfo.STREAM_TYPE_NONE)));
+		assertSameAsBaseline(new MediaStatus(new MediaInfo(0, MediaInfo.STREAM_TYPE_INVALID)));
+	}
+	
+	@Test
+	public void noStatus() {
+		ChromecastMediaUpdate update = new ChromecastMediaStatusWriter().write(null, SESSION_ID);
+		assertNull(update.getPlayerState());
+		assertEquals("{}", update.toJSON());
+	}
+}
@@ -0,0 +1,194 @@
+package acidhax.cordova.chromecast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import android.os.Looper;
+
+public class ChromecastMessageChunkerTest {
+	private static final String NAMESPACE = "urn:x-cast:test";
+	private static final int MAX_BUFFERED = 8 * 1024 * 1024;
+	private static final int MAX_FRAMES = MAX_BUFFERED / 1024;
+	
+	private ChromecastMessageChunker chunker;
+	
+	@Before
+	public void setUp() {
+		Looper.getMainLooper().reset();
+		this.chunker = new ChromecastMessageChunker();
+	}
+	
+	private static String repeat(String s, int times) {
+		StringBuilder out = new StringBuilder(s.length() * times);
+		for (int i = 0; i < times; i++) {
+			out.append(s);
+		}
+		return out.toString();
+	}
+	
+	private static String frame(String id, int seq, int total, String data) {
+		return "{\"__chunk\":{\"id\":\"" + id + "\",\"seq\":" + seq + ",\"total\":" + total + "},\"data\":" + JSONObject.quote(data) + "}";
+	}
+	
+	/**
+	 * Feeds the frames in and checks only the last one gives back the message
+	 */
+	private String receiveAll(List<String> frames) {
+		String out = null;
+		for (int i = 0; i < frames.size(); i++) {
+			out = this.chunker.receive(NAMESPACE, frames.get(i));
+			if (i < frames.size() - 1) {
+				assertNull(out);
+			}
+		}
+		return out;
+	}
+	
+	@Test
+	public void splitsOnlyWhatDoesNotFit() {
+		String fits = repeat("é", ChromecastMessageChunker.MAX_MESSAGE_BYTES / 2);
+		assertEquals(ChromecastMessageChunker.MAX_MESSAGE_BYTES, ChromecastMessageChunker.utf8Length(fits));
+		assertFalse(this.chunker.needsSplit(fits));
+		assertTrue(this.chunker.needsSplit(fits + "a"));
+		assertFalse(this.chunker.needsSplit(repeat("a", 30000)));
+	}
+	
+	@Test
+	public void plainMessagesPassThrough() {
+		assertEquals("{\"hello\":1}", this.chunker.receive(NAMESPACE, "{\"hello\":1}"));
+		assertEquals("not json", this.chunker.receive(NAMESPACE, "not json"));
+	}
+	
+	@Test
+	public void escapeHeavyFramesStayUnderTheLimit() throws JSONException {
+		// Control characters take 6 bytes escaped, quotes 2, the emoji is a surrogate pair of 4 - full sized
+		// parts come out well over the limit and have to be halved
+		String message = repeat("\u0001\u0001\u0001\"é😀", 12000);
+		assertTrue(this.chunker.needsSplit(message));
+		
+		List<String> frames = this.chunker.split(message);
+		assertTrue(frames.size() > 1);
+		for (String frame : frames) {
+			assertTrue(ChromecastMessageChunker.utf8Length(frame) <= ChromecastMessageChunker.MAX_MESSAGE_BYTES);
+			String data = new JSONObject(frame).getString("data");
+			assertFalse(Character.isHighSurrogate(data.charAt(data.length() - 1)));
+		}
+		assertEquals(message, this.receiveAll(frames));
+	}
+	
+	@Test
+	public void multiByteJustOverTheLimit() {
+		String message = repeat("€", ChromecastMessageChunker.MAX_MESSAGE_BYTES / 3 + 1);
+		assertTrue(this.chunker.needsSplit(message));
+		List<String> frames = this.chunker.split(message);
+		for (String frame : frames) {
+			assertTrue(ChromecastMessageChunker.utf8Length(frame) <= ChromecastMessageChunker.MAX_MESSAGE_BYTES);
+		}
+		assertEquals(message, this.receiveAll(frames));
+	}
+	
+	@Test
+	public void framesInAnyOrder() {
+		String message = repeat("0123456789", 20000);
+		List<String> frames = new ArrayList<String>(this.chunker.split(message));
+		assertTrue(frames.size() >= 3);
+		Collections.reverse(frames);
+		assertEquals(message, this.receiveAll(frames));
+	}
+	
+	@Test
+	public void duplicateFramesAreIgnored() {
+		assertNull(this.chunker.receive(NAMESPACE, frame("7", 0, 2, "abc")));
+		assertNull(this.chunker.receive(NAMESPACE, frame("7", 0, 2, "xyz")));
+		assertEquals("abcdef", this.chunker.receive(NAMESPACE, frame("7", 1, 2, "def")));
+		// Once delivered, a late copy starts over rather than delivering twice
+		assertNull(this.chunker.receive(NAMESPACE, frame("7", 1, 2, "def")));
+	}
+	
+	@Test
+	public void namespacesDoNotMix() {
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", 0, 2, "a")));
+		assertNull(this.chunker.receive("urn:x-cast:other", frame("1", 1, 2, "z")));
+		assertEquals("ab", this.chunker.receive(NAMESPACE, frame("1", 1, 2, "b")));
+	}
+	
+	@Test
+	public void badFramesAreIgnored() {
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", 2, 2, "a")));
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", -1, 2, "a")));
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", 0, 0, "a")));
+		// A total that doesn't match the first frame seen
+		assertNull(this.chunker.receive(NAMESPACE, frame("2", 0, 2, "a")));
+		assertNull(this.chunker.receive(NAMESPACE, frame("2", 1, 3, "b")));
+		assertEquals("ac", this.chunker.receive(NAMESPACE, frame("2", 1, 2, "c")));
+	}
+	
+	@Test
+	public void tooManyFramesIsRejected() {
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", 0, MAX_FRAMES + 1, "a")));
+		// Nothing was kept for it
+		assertEquals(0, Looper.getMainLooper().getPendingCount());
+		
+		assertNull(this.chunker.receive(NAMESPACE, frame("2", 0, MAX_FRAMES, "a")));
+		assertEquals(1, Looper.getMainLooper().getPendingCount());
+	}
+	
+	@Test
+	public void overBudgetMessageIsDropped() {
+		String fiveMegs = repeat("a", 5 * 1024 * 1024);
+		String fourMegs = repeat("b", 4 * 1024 * 1024);
+		assertNull(this.chunker.receive(NAMESPACE, frame("big", 0, 3, fiveMegs)));
+		assertNull(this.chunker.receive(NAMESPACE, frame("big", 1, 3, fourMegs)));
+		// Over 8M buffered, so the partial message went - its last frame can't finish it
+		assertNull(this.chunker.receive(NAMESPACE, frame("big", 2, 3, "c")));
+	}
+	
+	@Test
+	public void overBudgetDropsTheOldestFirst() {
+		String fiveMegs = repeat("a", 5 * 1024 * 1024);
+		assertNull(this.chunker.receive(NAMESPACE, frame("old", 0, 2, fiveMegs)));
+		assertNull(this.chunker.receive(NAMESPACE, frame("new", 0, 2, fiveMegs)));
+		assertNull(this.chunker.receive(NAMESPACE, frame("old", 1, 2, "x")));
+		assertEquals(fiveMegs + "y", this.chunker.receive(NAMESPACE, frame("new", 1, 2, "y")));
+	}
+	
+	@Test
+	public void quietPartialsAreEvicted() {
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", 0, 2, "a")));
+		assertEquals(1, Looper.getMainLooper().getPendingCount());
+		
+		Looper.getMainLooper().idleFor(30001);
+		// Dropped by the timer, which doesn't come back with nothing left to watch
+		assertEquals(0, Looper.getMainLooper().getPendingCount());
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", 1, 2, "b")));
+	}
+	
+	@Test
+	public void activeMessagesAreKept() {
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", 0, 3, "a")));
+		Looper.getMainLooper().idleFor(20000);
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", 1, 3, "b")));
+		// 45s since it started, but only 25s since the last frame
+		Looper.getMainLooper().idleFor(25000);
+		assertEquals("abc", this.chunker.receive(NAMESPACE, frame("1", 2, 3, "c")));
+	}
+	
+	@Test
+	public void clearDropsEverything() {
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", 0, 2, "a")));
+		this.chunker.clear();
+		assertEquals(0, Looper.getMainLooper().getPendingCount());
+		assertNull(this.chunker.receive(NAMESPACE, frame("1", 1, 2, "b")));
+	}
+}
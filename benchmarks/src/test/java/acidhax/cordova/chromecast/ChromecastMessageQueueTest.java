@@ -0,0 +1,256 @@
+package acidhax.cordova.chromecast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+/*
+ * Drives the queue with a fake channel that holds on to each message until the test answers it.
+ */
+public class ChromecastMessageQueueTest {
+	private static final String NAMESPACE = "urn:x-cast:test";
+	
+	private ArrayList<String> sent;
+	private ArrayList<ChromecastSessionCallback> pending;
+	private ChromecastMessageQueue queue;
+	
+	/*
+	 * Remembers how each message it was handed ended up
+	 */
+	private static class Result extends ChromecastSessionCallback {
+		final List<String> outcomes = Collections.synchronizedList(new ArrayList<String>());
+		
+		@Override
+		void onSuccess(Object object) {
+			this.outcomes.add("ok");
+		}
+		
+		@Override
+		void onError(String reason) {
+			this.outcomes.add(reason);
+		}
+	}
+	
+	@Before
+	public void setUp() {
+		this.sent = new ArrayList<String>();
+		this.pending = new ArrayList<ChromecastSessionCallback>();
+		this.queue = new ChromecastMessageQueue(new ChromecastMessageQueue.Sender() {
+			public void send(String namespace, String message, ChromecastSessionCallback callback) {
+				ChromecastMessageQueueTest.this.sent.add(message);
+				ChromecastMessageQueueTest.this.pending.add(callback);
+			}
+		});
+	}
+	
+	private void answerNext() {
+		this.pending.remove(0).onSuccess();
+	}
+	
+	private JSONObject stats() throws JSONException {
+		return this.queue.getStats().getJSONObject(NAMESPACE);
+	}
+	
+	@Test
+	public void sendsInOrderWithinTheWindow() throws JSONException {
+		Result result = new Result();
+		for (int i = 0; i < 10; i++) {
+			this.queue.send(NAMESPACE, "m" + i, result);
+		}
+		assertEquals(Arrays.asList("m0", "m1", "m2", "m3"), this.sent);
+		assertEquals(6, this.stats().getInt("queued"));
+		assertEquals(4, this.stats().getInt("inFlight"));
+		
+		this.answerNext();
+		assertEquals("m4", this.sent.get(4));
+		while (!this.pending.isEmpty()) {
+			this.answerNext();
+		}
+		assertEquals(Arrays.asList("m0", "m1", "m2", "m3", "m4", "m5", "m6", "m7", "m8", "m9"), this.sent);
+		assertEquals(10, result.outcomes.size());
+		assertEquals(10, this.stats().getLong("sent"));
+	}
+	
+	@Test
+	public void widerWindowSendsMoreStraightAway() {
+		Result result = new Result();
+		this.queue.setWindow(NAMESPACE, 1);
+		for (int i = 0; i < 5; i++) {
+			this.queue.send(NAMESPACE, "m" + i, result);
+		}
+		assertEquals(1, this.sent.size());
+		this.queue.setWindow(NAMESPACE, 3);
+		assertEquals(Arrays.asList("m0", "m1", "m2"), this.sent);
+	}
+	
+	@Test
+	public void turnsAwayMessagesOnceFull() throws JSONException {
+		Result result = new Result();
+		this.queue.setWindow(NAMESPACE, 1);
+		// One goes straight out, the next 64 wait
+		for (int i = 0; i < 1 + ChromecastMessageQueue.DEFAULT_MAX_QUEUED; i++) {
+			this.queue.send(NAMESPACE, "m" + i, result);
+		}
+		assertTrue(result.outcomes.isEmpty());
+		
+		this.queue.send(NAMESPACE, "one too many", result);
+		assertEquals(Arrays.asList("queue_full"), result.outcomes);
+		assertEquals(1, this.stats().getLong("rejected"));
+		assertEquals(ChromecastMessageQueue.DEFAULT_MAX_QUEUED, this.stats().getInt("queued"));
+		
+		// Room again once the channel takes one
+		this.answerNext();
+		this.queue.send(NAMESPACE, "fits now", result);
+		assertEquals(Arrays.asList("queue_full", "ok"), result.outcomes);
+	}
+	
+	@Test
+	public void framesAreQueuedAllOrNothing() throws JSONException {
+		Result filler = new Result();
+		this.queue.setWindow(NAMESPACE, 1);
+		for (int i = 0; i < ChromecastMessageQueue.DEFAULT_MAX_QUEUED - 1; i++) {
+			this.queue.send(NAMESPACE, "m" + i, filler);
+		}
+		// One in flight, 62 waiting - two slots left
+		Result frames = new Result();
+		this.queue.send(NAMESPACE, Arrays.asList("f0", "f1", "f2"), frames);
+		assertEquals(Arrays.asList("queue_full"), frames.outcomes);
+		assertEquals(3, this.stats().getLong("rejected"));
+		assertEquals(ChromecastMessageQueue.DEFAULT_MAX_QUEUED - 2, this.stats().getInt("queued"));
+		
+		this.queue.send(NAMESPACE, Arrays.asList("f0", "f1"), frames);
+		assertEquals(ChromecastMessageQueue.DEFAULT_MAX_QUEUED, this.stats().getInt("queued"));
+		while (!this.pending.isEmpty()) {
+			this.answerNext();
+		}
+		assertEquals(Arrays.asList("f0", "f1"), this.sent.subList(this.sent.size() - 2, this.sent.size()));
+		assertEquals(Arrays.asList("queue_full", "ok", "ok"), frames.outcomes);
+	}
+	
+	@Test
+	public void clearFailsWhatIsStillQueued() throws JSONException {
+		Result result = new Result();
+		for (int i = 0; i < 6; i++) {
+			this.queue.send(NAMESPACE, "m" + i, result);
+		}
+		this.queue.clear("session_error");
+		assertEquals(Arrays.asList("session_error", "session_error"), result.outcomes);
+		assertEquals(0, this.stats().getInt("queued"));
+		assertEquals(2, this.stats().getLong("failed"));
+		
+		// What was already on the channel still answers
+		this.answerNext();
+		assertEquals(3, result.outcomes.size());
+		assertEquals(4, this.sent.size());
+	}
+	
+	@Test
+	public void failedSendsFreeTheWindow() throws JSONException {
+		Result result = new Result();
+		this.queue.setWindow(NAMESPACE, 1);
+		this.queue.send(NAMESPACE, "m0", result);
+		this.queue.send(NAMESPACE, "m1", result);
+		this.pending.remove(0).onError("channel_error");
+		assertEquals(Arrays.asList("m0", "m1"), this.sent);
+		assertEquals(Arrays.asList("channel_error"), result.outcomes);
+		assertEquals(1, this.stats().getLong("failed"));
+	}
+	
+	@Test
+	public void countsUtf8Bytes() throws JSONException {
+		this.queue.send(NAMESPACE, "aé€😀", new Result());
+		this.answerNext();
+		assertEquals(1 + 2 + 3 + 4, this.stats().getLong("bytesSent"));
+	}
+	
+	@Test
+	public void channelAnsweringStraightAwayKeepsOrder() {
+		final ArrayList<String> order = new ArrayList<String>();
+		ChromecastMessageQueue queue = new ChromecastMessageQueue(new ChromecastMessageQueue.Sender() {
+			public void send(String namespace, String message, ChromecastSessionCallback callback) {
+				order.add(message);
+				callback.onSuccess();
+			}
+		});
+		ArrayList<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 1000; i++) {
+			queue.send(NAMESPACE, "m" + i, new Result());
+			expected.add("m" + i);
+		}
+		assertEquals(expected, order);
+	}
+	
+	@Test
+	public void oneSenderAtATimeAcrossThreads() throws InterruptedException {
+		final int threads = 8;
+		final int perThread = 500;
+		final AtomicInteger inside = new AtomicInteger();
+		final AtomicInteger overlaps = new AtomicInteger();
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		final ChromecastMessageQueue queue = new ChromecastMessageQueue(new ChromecastMessageQueue.Sender() {
+			public void send(String namespace, String message, ChromecastSessionCallback callback) {
+				if (inside.incrementAndGet() > 1) {
+					overlaps.incrementAndGet();
+				}
+				order.add(message);
+				// Give another thread the chance to get in, if the queue would let it
+				Thread.yield();
+				inside.decrementAndGet();
+				callback.onSuccess();
+			}
+		});
+		
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		final Result result = new Result();
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+						for (int i = 0; i < perThread; i++) {
+							queue.send(NAMESPACE, thread + ":" + i, result);
+						}
+					} catch (InterruptedException e) {
+						
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+		start.countDown();
+		done.await();
+		
+		assertEquals(0, overlaps.get());
+		// Senders can outrun the channel, so some may have been turned away - but none went missing
+		int rejected = 0;
+		for (String outcome : result.outcomes) {
+			rejected += outcome.equals("queue_full") ? 1 : 0;
+		}
+		assertEquals(threads * perThread, order.size() + rejected);
+		assertEquals(threads * perThread, result.outcomes.size());
+		// Each thread's messages went out in the order that thread sent them
+		int[] last = new int[threads];
+		Arrays.fill(last, -1);
+		for (String message : order) {
+			String[] parts = message.split(":");
+			int thread = Integer.parseInt(parts[0]);
+			int seq = Integer.parseInt(parts[1]);
+			assertTrue(seq > last[thread]);
+			last[thread] = seq;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package acidhax.cordova.chromecast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import android.os.Looper;
+
+public class ChromecastSessionRecoveryTest {
+	// Longer than any backoff delay
+	private static final long LONG = 60000;
+	
+	private ChromecastSessionRecovery recovery;
+	private ArrayList<Integer> attempts;
+	private int failed;
+	
+	@Before
+	public void setUp() {
+		Looper.getMainLooper().reset();
+		this.attempts = new ArrayList<Integer>();
+		this.failed = 0;
+		this.recovery = new ChromecastSessionRecovery(new ChromecastSessionRecovery.Listener() {
+			public void onRecoveryAttempt(int attempt) {
+				ChromecastSessionRecoveryTest.this.attempts.add(attempt);
+			}
+			
+			public void onRecoveryFailed() {
+				ChromecastSessionRecoveryTest.this.failed++;
+			}
+		});
+	}
+	
+	@Test
+	public void firstAttemptWithinBaseDelay() {
+		assertTrue(this.recovery.start(null, 0));
+		Looper.getMainLooper().idleFor(499);
+		assertEquals(0, this.attempts.size());
+		Looper.getMainLooper().idleFor(501);
+		assertEquals(1, this.attempts.size());
+	}
+	
+	@Test
+	public void nextAttemptWaitsForTheLastToFail() {
+		this.recovery.start(null, 0);
+		Looper.getMainLooper().idleFor(LONG);
+		assertEquals(1, this.attempts.size());
+		assertEquals(0, Looper.getMainLooper().getPendingCount());
+		
+		this.recovery.attemptFailed();
+		Looper.getMainLooper().idleFor(LONG);
+		assertEquals(2, this.attempts.size());
+		assertEquals(2, (int) this.attempts.get(1));
+	}
+	
+	@Test
+	public void failingTwiceSchedulesOnce() {
+		this.recovery.start(null, 0);
+		Looper.getMainLooper().idleFor(LONG);
+		this.recovery.attemptFailed();
+		this.recovery.attemptFailed();
+		assertEquals(1, Looper.getMainLooper().getPendingCount());
+	}
+	
+	@Test
+	public void givesUpAfterMaxAttempts() {
+		this.recovery.start(null, 0);
+		for (int i = 0; i < 20 && this.recovery.isRunning(); i++) {
+			Looper.getMainLooper().idleFor(LONG);
+			this.recovery.attemptFailed();
+		}
+		assertEquals(8, this.attempts.size());
+		assertEquals(1, this.failed);
+		assertFalse(this.recovery.isRunning());
+	}
+	
+	@Test
+	public void lateFailureAfterSuccessIsIgnored() {
+		this.recovery.start(null, 0);
+		Looper.getMainLooper().idleFor(LONG);
+		this.recovery.succeeded();
+		this.recovery.attemptFailed();
+		Looper.getMainLooper().idleFor(LONG);
+		assertEquals(1, this.attempts.size());
+		assertEquals(0, this.failed);
+	}
+	
+	@Test
+	public void startOnlyOnce() {
+		assertTrue(this.recovery.start(null, 0));
+		assertFalse(this.recovery.start(null, 0));
+		this.recovery.cancel();
+		Looper.getMainLooper().idleFor(LONG);
+		assertEquals(0, this.attempts.size());
+		assertTrue(this.recovery.start(null, 0));
+	}
+}
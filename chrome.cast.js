@@ -64,6 +64,15 @@ chrome.cast = {
 	 */
 	DefaultActionPolicy: { CREATE_SESSION: "create_session", CAST_THIS_TAB: "cast_this_tab" },
 
+	/**
+	 * The state of a session.
+	 * CONNECTED: The session is connected to the receiver application.
+	 * RECONNECTING: The connection dropped and the session is being rejoined. Commands fail until it is back.
+	 * STOPPED: The session has ended.
+	 * @type {Object}
+	 */
+	SessionStatus: { CONNECTED: "connected", RECONNECTING: "reconnecting", STOPPED: "stopped" },
+
 	/**
 	 * Errors that may be returned by the SDK.
 	 * API_NOT_INITIALIZED: The API is not initialized.
@@ -453,11 +462,13 @@ var _sessionListener = null;
 var _sessionRequest = null;
 
 var _sessions = {};
-var _currentMedia = null;
+// The last loaded media of each session, by session id
+var _media = {};
 var _routeListEl = document.createElement('ul');
 _routeListEl.classList.add('route-list');
 var _routeList = {};
-var _routeRefreshInterval = null;
+var _routeVersion = -1;
+var _updateState = {};
 
 var _receiverAvailable = false;
 
@@ -485,10 +496,9 @@ chrome.cast.initialize = function (apiConfig, successCallback, errorCallback) {
 		if (!err) {
 			successCallback();
 
-			clearInterval(_routeRefreshInterval);
-			_routeRefreshInterval = setInterval(function() {
-				execute('emitAllRoutes');
-			}, 15000);
+			// Get the routes found so far - routesUpdated tells us about the rest as it happens
+			_routeVersion = -1;
+			execute('emitAllRoutes');
 
 		} else {
 			handleError(err, errorCallback);
@@ -531,6 +541,338 @@ chrome.cast.requestSession = function (successCallback, errorCallback, opt_sessi
 	});
 };
 
+/**
+ * Opt-in: while the requestSession picker is open, connect in the background to the receiver that's most likely
+ * to be picked (the one used last time, or the only one around) so there's less to wait for once it is.
+ * Picking another receiver or cancelling drops that connection.
+ * @param {boolean}  enabled         
+ * @param {function} successCallback 
+ * @param {function} errorCallback   
+ */
+chrome.cast.setSpeculativeConnect = function (enabled, successCallback, errorCallback) {
+	execute('setSpeculativeConnect', !!enabled, function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Only lists receivers that have all of the given capabilities. The filtering is done natively, so routes that
+ * don't match never reach the route list or the receiver listener.
+ * @param {chrome.cast.Capability[]} capabilities    For example [chrome.cast.Capability.VIDEO_OUT], empty for every receiver.
+ * @param {function}                 successCallback 
+ * @param {function}                 errorCallback   
+ */
+chrome.cast.setRouteFilter = function (capabilities, successCallback, errorCallback) {
+	execute('setRouteFilter', capabilities || [], function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Sets how often media status updates are delivered. Bursts of updates within the interval are merged into the newest one;
+ * player state changes are always delivered straight away.
+ * @param {number}   interval        Milliseconds, 0 delivers every update.
+ * @param {function} successCallback 
+ * @param {function} errorCallback   
+ */
+chrome.cast.setMediaUpdateInterval = function (interval, successCallback, errorCallback) {
+	execute('setMediaUpdateInterval', interval, function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Sets the lowest level of native plugin diagnostics that gets recorded.
+ * @param {string}   level           verbose | debug | info | warn | error | none
+ * @param {function} successCallback 
+ * @param {function} errorCallback   
+ */
+chrome.cast.setLogLevel = function (level, successCallback, errorCallback) {
+	execute('setLogLevel', level, function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Fetches the buffered native plugin diagnostics.
+ * @param {number}   since           Sequence number of the last entry already seen, -1 for everything.
+ * @param {function} successCallback Invoked with an array of { seq, time, level, message }.
+ * @param {function} errorCallback   
+ */
+chrome.cast.getLogs = function (since, successCallback, errorCallback) {
+	execute('getLogs', since, function(err, entries) {
+		if (!err) {
+			successCallback && successCallback(entries);
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Streams native plugin diagnostics at or above the level as they are logged, starting with what is already buffered.
+ * Call again with 'none' to stop.
+ * @param {string}   level    verbose | debug | info | warn | error | none
+ * @param {function} listener Invoked with an array of { seq, time, level, message } each time entries arrive.
+ */
+chrome.cast.streamLogs = function (level, listener) {
+	execute('streamLogs', level, function(err, entries) {
+		if (!err) {
+			entries && entries.length && listener(entries);
+		}
+	});
+};
+
+/**
+ * Runs several native operations in a single bridge call.
+ * Each command is an array of the action name followed by its arguments, for example ['mediaSeek', 30, ''].
+ * Only commands that answer once can be batched - listeners, log streams and the device picker fail with invalid_parameter.
+ * @param  {Array[]}  commands        The commands to run, in order.
+ * @param  {function} successCallback Invoked with an array of { action, success, result }, one per command.
+ * @param  {function} errorCallback   
+ * @param  {boolean}  opt_pipelined   Send every command without waiting for the previous one to finish.
+ */
+chrome.cast.executeBatch = function (commands, successCallback, errorCallback, opt_pipelined) {
+	if (chrome.cast.isAvailable === false) {
+		errorCallback(new chrome.cast.Error(chrome.cast.ErrorCode.API_NOT_INITIALIZED), 'The API is not initialized.', {});
+		return;
+	}
+
+	execute('executeBatch', commands, opt_pipelined || false, function(err, results) {
+		if (!err) {
+			successCallback && successCallback(results);
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Gets what the native side is still waiting on a receiver for.
+ * @param {function} successCallback Invoked with { count, oldestAge, types: { type: { count, oldestAge } } }, ages in milliseconds.
+ * @param {function} errorCallback   
+ */
+chrome.cast.getPendingOperations = function (successCallback, errorCallback) {
+	execute('getPendingOperations', function(err, stats) {
+		if (!err) {
+			successCallback && successCallback(stats);
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Sets how long operations of a type may wait on the receiver before they fail with TIMEOUT.
+ * @param {string}   type            'launch', 'join', 'load', 'media', 'status' or 'message'.
+ * @param {number}   timeout         Milliseconds, 0 to wait as long as it takes.
+ * @param {function} successCallback 
+ * @param {function} errorCallback   
+ */
+chrome.cast.setOperationTimeout = function (type, timeout, successCallback, errorCallback) {
+	execute('setOperationTimeout', type, timeout, function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Fails every operation that is still waiting on a receiver with CANCEL.
+ * @param {function} successCallback Invoked with the number of cancelled operations.
+ * @param {function} errorCallback   
+ */
+chrome.cast.cancelPendingOperations = function (successCallback, errorCallback) {
+	execute('cancelPendingOperations', function(err, cancelled) {
+		if (!err) {
+			successCallback && successCallback(cancelled);
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Starts a session on another receiver while keeping the current one. The new session does not replace the
+ * one the sessionListener was given; it is passed to successCallback instead.
+ * @param  {string}   routeId         The id of a route from the route list.
+ * @param  {function} successCallback Invoked with the chrome.cast.Session.
+ * @param  {function} errorCallback   
+ */
+chrome.cast.addSession = function (routeId, successCallback, errorCallback) {
+	if (chrome.cast.isAvailable === false) {
+		errorCallback(new chrome.cast.Error(chrome.cast.ErrorCode.API_NOT_INITIALIZED), 'The API is not initialized.', {});
+		return;
+	}
+
+	execute('addSession', routeId, function(err, obj) {
+		if (!err) {
+			var session = _sessions[obj.sessionId];
+			if (!session) {
+				var receiver = new chrome.cast.Receiver(obj.receiver.label, obj.receiver.friendlyName, obj.receiver.capabilities || [], obj.volume || null);
+				session = _sessions[obj.sessionId] = new chrome.cast.Session(obj.sessionId, obj.appId, obj.displayName, obj.appImages || [], receiver);
+			}
+			successCallback && successCallback(session);
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Names a set of sessions so sessionCommand can address all of them at once as 'group:<name>'.
+ * @param {string}   name            
+ * @param {string[]} sessionIds      The members; an empty array removes the group.
+ * @param {function} successCallback 
+ * @param {function} errorCallback   
+ */
+chrome.cast.setSessionGroup = function (name, sessionIds, successCallback, errorCallback) {
+	execute('setSessionGroup', name, sessionIds || [], function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Runs a session or media command, for example ['mediaSeek', 30, ''], on one or more sessions in a single bridge call.
+ * @param  {string}   target          A session id, 'group:<name>', or '*' for every session.
+ * @param  {Array}    command         The action name followed by its arguments.
+ * @param  {function} successCallback Invoked with the result for a single session, otherwise with an array of { sessionId, success, result }.
+ * @param  {function} errorCallback   
+ */
+chrome.cast.sessionCommand = function (target, command, successCallback, errorCallback) {
+	if (chrome.cast.isAvailable === false) {
+		errorCallback(new chrome.cast.Error(chrome.cast.ErrorCode.API_NOT_INITIALIZED), 'The API is not initialized.', {});
+		return;
+	}
+
+	execute('sessionCommand', target, command, function(err, results) {
+		if (!err) {
+			successCallback && successCallback(results);
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Loads the same media on every session of a target and starts them in step. Each receiver's round trip
+ * is measured so commands land at the same time, and while the group plays, receivers that drift apart
+ * are seeked back in line.
+ * @param  {string}                        target          A session id, 'group:<name>', or '*' for every session.
+ * @param  {chrome.cast.media.LoadRequest} loadRequest     
+ * @param  {function}                      successCallback Invoked with an array of chrome.cast.media.Media, one per session.
+ * @param  {function}                      errorCallback   
+ */
+chrome.cast.groupLoad = function (target, loadRequest, successCallback, errorCallback) {
+	if (chrome.cast.isAvailable === false) {
+		errorCallback(new chrome.cast.Error(chrome.cast.ErrorCode.API_NOT_INITIALIZED), 'The API is not initialized.', {});
+		return;
+	}
+
+	var mediaInfo = loadRequest.media;
+	execute('groupLoad', target, mediaInfo.contentId, mediaInfo.contentType, mediaInfo.duration || 0.0, mediaInfo.streamType, loadRequest.autoplay || false, loadRequest.currentTime || 0, function(err, loaded) {
+		if (!err) {
+			var media = [];
+			for (var n = 0; n < loaded.length; n++) {
+				var m = _media[loaded[n].sessionId] = new chrome.cast.media.Media(loaded[n].sessionId, loaded[n].mediaSessionId);
+				m.media = mediaInfo;
+				media.push(m);
+			}
+			successCallback && successCallback(media);
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Starts every session of a target from the same position at the same moment.
+ * @param {string}   target          
+ * @param {function} successCallback 
+ * @param {function} errorCallback   
+ */
+chrome.cast.groupPlay = function (target, successCallback, errorCallback) {
+	execute('groupPlay', target, function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Pauses every session of a target at the same moment.
+ * @param {string}   target          
+ * @param {function} successCallback 
+ * @param {function} errorCallback   
+ */
+chrome.cast.groupPause = function (target, successCallback, errorCallback) {
+	execute('groupPause', target, function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Seeks every session of a target at the same moment.
+ * @param {string}                        target          
+ * @param {chrome.cast.media.SeekRequest} seekRequest     
+ * @param {function}                      successCallback 
+ * @param {function}                      errorCallback   
+ */
+chrome.cast.groupSeek = function (target, seekRequest, successCallback, errorCallback) {
+	execute('groupSeek', target, seekRequest.currentTime, seekRequest.resumeState || "", function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Sets how far, in milliseconds, a session may drift from the rest of the target before it is seeked back in line. The default is 100.
+ * @param {string}   target          
+ * @param {number}   threshold       
+ * @param {function} successCallback 
+ * @param {function} errorCallback   
+ */
+chrome.cast.setGroupDriftThreshold = function (target, threshold, successCallback, errorCallback) {
+	execute('setGroupDriftThreshold', target, threshold, function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
 /**
  * Sets custom receiver list
  * @param {chrome.cast.Receiver[]} 	receivers       The new list. Must not be null.
@@ -562,6 +904,7 @@ chrome.cast.setCustomReceivers = function (receivers, successCallback, errorCall
  * @property {Object[]} 						namespaces 	A list of the namespaces supported by the receiver application.	
  * @property {chrome.cast.SenderApplication} 	senderApps 	The sender applications supported by the receiver application.
  * @property {string}							statusText 	Descriptive text for the current application content, for example “My Wedding Slideshow”.
+ * @property {chrome.cast.SessionStatus}		status 		Whether the session is connected, reconnecting or stopped.
  */
 chrome.cast.Session = function(sessionId, appId, displayName, appImages, receiver) {
 	EventEmitter.call(this);
@@ -571,6 +914,7 @@ chrome.cast.Session = function(sessionId, appId, displayName, appImages, receive
 	this.appImages = appImages || [];
 	this.receiver = receiver;
 	this.media = [];
+	this.status = chrome.cast.SessionStatus.CONNECTED;
 };
 chrome.cast.Session.prototype = Object.create(EventEmitter.prototype);
 
@@ -586,7 +930,7 @@ chrome.cast.Session.prototype.setReceiverVolumeLevel = function (newLevel, succe
 		return;
 	}
 
-	execute('setReceiverVolumeLevel', newLevel, function(err) {
+	executeOnSession(this.sessionId, 'setReceiverVolumeLevel', newLevel, function(err) {
 		if (!err) {
 			successCallback && successCallback();
 		} else {
@@ -608,7 +952,7 @@ chrome.cast.Session.prototype.setReceiverMuted = function (muted, successCallbac
 		return;
 	}
 
-	execute('setReceiverMuted', muted, function(err) {
+	executeOnSession(this.sessionId, 'setReceiverMuted', muted, function(err) {
 		if (!err) {
 			successCallback && successCallback();
 		} else {
@@ -628,7 +972,7 @@ chrome.cast.Session.prototype.stop = function (successCallback, errorCallback) {
 		return;
 	}
 
-	execute('sessionStop', function(err) {
+	executeOnSession(this.sessionId, 'sessionStop', function(err) {
 		if (!err) {
 			successCallback && successCallback();
 		} else {
@@ -655,7 +999,73 @@ chrome.cast.Session.prototype.sendMessage = function (namespace, message, succes
 	if (typeof message === 'object') {
 		message = JSON.stringify(message);
 	}
-	execute('sendMessage', namespace, message, function(err) {
+	executeOnSession(this.sessionId, 'sendMessage', namespace, message, function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Sends a request to the receiver application on the given namespace and waits for its reply.
+ * A "requestId" is added to the message; the receiver must reply on the same namespace with that requestId.
+ * @param  {string} 			namespace       
+ * @param  {Object or string} 	message         A JSON object. Must not be null
+ * @param  {function} 			successCallback Invoked with the reply message.
+ * @param  {function} 			errorCallback   Invoked on error. The possible errors are TIMEOUT, API_NOT_INITIALIZED, INVALID_PARAMETER, CHANNEL_ERROR and SESSION_ERROR
+ * @param  {number} 			opt_timeout     Milliseconds to wait for the reply.
+ */
+chrome.cast.Session.prototype.sendRequest = function (namespace, message, successCallback, errorCallback, opt_timeout) {
+	if (chrome.cast.isAvailable === false) {
+		errorCallback(new chrome.cast.Error(chrome.cast.ErrorCode.API_NOT_INITIALIZED), 'The API is not initialized.', {});
+		return;
+	}
+
+	if (typeof message === 'object') {
+		message = JSON.stringify(message);
+	}
+	executeOnSession(this.sessionId, 'sendRequest', namespace, message, opt_timeout || chrome.cast.timeout.sendCustomMessage, function(err, reply) {
+		if (!err) {
+			successCallback && successCallback(reply);
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
+/**
+ * Sets how many messages on a namespace may be waiting on the channel at once. Messages beyond that are queued and
+ * sent in order; once the queue is full sendMessage fails with CHANNEL_ERROR until it drains.
+ * @param {string}   namespace       The namespace, or null to set the default.
+ * @param {number}   size            
+ * @param {function} successCallback 
+ * @param {function} errorCallback   
+ */
+chrome.cast.Session.prototype.setMessageWindow = function (namespace, size, successCallback, errorCallback) {
+	var args = namespace ? [this.sessionId, 'setMessageWindow', namespace, size] : [this.sessionId, 'setMessageWindow', size];
+	args.push(function(err) {
+		if (!err) {
+			successCallback && successCallback();
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+	executeOnSession.apply(null, args);
+};
+
+/**
+ * Turns compression of large messages on or off for a namespace. Both ends announce support with
+ * {"type":"__encoding","supported":["deflate"]}; until the receiver answers, messages are sent as they are.
+ * Compressed messages look like {"__deflate":"<base64 of the deflated UTF-8 text>"}.
+ * @param {string}   namespace       
+ * @param {string}   encoding        'deflate' or 'none'
+ * @param {function} successCallback 
+ * @param {function} errorCallback   
+ */
+chrome.cast.Session.prototype.setMessageEncoding = function (namespace, encoding, successCallback, errorCallback) {
+	executeOnSession(this.sessionId, 'setMessageEncoding', namespace, encoding, function(err) {
 		if (!err) {
 			successCallback && successCallback();
 		} else {
@@ -664,6 +1074,21 @@ chrome.cast.Session.prototype.sendMessage = function (namespace, message, succes
 	});
 };
 
+/**
+ * Gets the outbound message queue counters.
+ * @param {function} successCallback Invoked with { namespace: { queued, inFlight, window, sent, failed, rejected, bytesSent, messagesPerSecond, bytesPerSecond } }.
+ * @param {function} errorCallback   
+ */
+chrome.cast.Session.prototype.getMessageQueueStats = function (successCallback, errorCallback) {
+	executeOnSession(this.sessionId, 'getMessageQueueStats', function(err, stats) {
+		if (!err) {
+			successCallback && successCallback(stats);
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
 /**
  * Request to load media. Must not be null.
  * @param  {chrome.cast.media.LoadRequest} loadRequest     Request to load media. Must not be null.
@@ -679,14 +1104,14 @@ chrome.cast.Session.prototype.loadMedia = function (loadRequest, successCallback
 	var self = this;
 
 	var mediaInfo = loadRequest.media;
-	execute('loadMedia', mediaInfo.contentId, mediaInfo.contentType, mediaInfo.duration || 0.0, mediaInfo.streamType, loadRequest.autoplay || false, loadRequest.currentTime || 0, function(err, obj) {
+	executeOnSession(self.sessionId, 'loadMedia', mediaInfo.contentId, mediaInfo.contentType, mediaInfo.duration || 0.0, mediaInfo.streamType, loadRequest.autoplay || false, loadRequest.currentTime || 0, function(err, obj) {
 		if (!err) {
-			_currentMedia = new chrome.cast.media.Media(self.sessionId, obj.mediaSessionId);
-			_currentMedia.media = mediaInfo;
+			var media = _media[self.sessionId] = new chrome.cast.media.Media(self.sessionId, obj.mediaSessionId);
+			media.media = mediaInfo;
 
 			// TODO: Fill in the rest of the media properties
 			
-			successCallback(_currentMedia);
+			successCallback(media);
 
 		} else {
 			handleError(err, errorCallback);
@@ -720,7 +1145,7 @@ chrome.cast.Session.prototype.removeUpdateListener = function (listener) {
  * @param {function} listener  The listener to add.
  */
 chrome.cast.Session.prototype.addMessageListener = function (namespace, listener) {
-	execute('addListener', namespace);
+	executeOnSession(this.sessionId, 'addListener', namespace);
 	this.on('message:' + namespace, listener);
 };
 
@@ -752,6 +1177,9 @@ chrome.cast.Session.prototype.removeMediaListener = function (listener) {
 
 chrome.cast.Session.prototype._update = function(isAlive, obj) {
 	
+	if (!isAlive) {
+		this.status = chrome.cast.SessionStatus.STOPPED;
+	}
 	this.appId = obj.appId;
 	this.appImages = obj.appImages;
 	this.displayName = obj.displayName;
@@ -820,7 +1248,7 @@ chrome.cast.media.Media.prototype.play = function (playRequest, successCallback,
 		return;
 	}
 
-	execute('mediaPlay', function(err) {
+	executeOnSession(this.sessionId, 'mediaPlay', function(err) {
 		if (!err) {
 			successCallback && successCallback();
 		} else {
@@ -841,7 +1269,7 @@ chrome.cast.media.Media.prototype.pause = function (pauseRequest, successCallbac
 		return;
 	}
 
-	execute('mediaPause', function(err) {
+	executeOnSession(this.sessionId, 'mediaPause', function(err) {
 		if (!err) {
 			successCallback && successCallback();
 		} else {
@@ -862,7 +1290,7 @@ chrome.cast.media.Media.prototype.seek = function (seekRequest, successCallback,
 		return;
 	}
 
-	execute('mediaSeek', seekRequest.currentTime, seekRequest.resumeState || "", function(err) {
+	executeOnSession(this.sessionId, 'mediaSeek', seekRequest.currentTime, seekRequest.resumeState || "", function(err) {
 		if (!err) {
 			successCallback && successCallback();
 		} else {
@@ -883,7 +1311,7 @@ chrome.cast.media.Media.prototype.stop = function (stopRequest, successCallback,
 		return;
 	}
 
-	execute('mediaStop', function(err) {
+	executeOnSession(this.sessionId, 'mediaStop', function(err) {
 		if (!err) {
 			successCallback && successCallback();
 		} else {
@@ -903,7 +1331,7 @@ chrome.cast.media.Media.prototype.setVolume = function (volumeRequest, successCa
 		errorCallback(new chrome.cast.Error(chrome.cast.ErrorCode.API_NOT_INITIALIZED), 'The API is not initialized.', {});
 		return;
 	}
-	var args = [];
+	var args = [this.sessionId];
 
 	if (volumeRequest.volume.level !== null) {
 		args.push('setMediaVolume');
@@ -913,7 +1341,7 @@ chrome.cast.media.Media.prototype.setVolume = function (volumeRequest, successCa
 		args.push(volumeRequest.volume.muted);
 	}
 
-	if (args.length < 2) {
+	if (args.length < 3) {
 		errorCallback(new chrome.cast.Error(chrome.cast.ErrorCode.INVALID_PARAMETER), 'Invalid request.', {});
 	} else {
 		args.push(function(err) {
@@ -924,7 +1352,7 @@ chrome.cast.media.Media.prototype.setVolume = function (volumeRequest, successCa
 			}
 		});
 
-		execute.apply(null, args);
+		executeOnSession.apply(null, args);
 	}
 };
 
@@ -993,6 +1421,10 @@ chrome.cast.media.Media.prototype._update = function(obj) {
 function createRouteElement(route) {
 	var el = document.createElement('li');
 	el.classList.add('route');
+	if (route.unconfirmed) {
+		// Remembered from before - discovery hasn't found it yet
+		el.classList.add('unconfirmed');
+	}
 	el.addEventListener('touchstart', onRouteClick);
 	el.textContent = route.name;
 	el.setAttribute('data-routeid', route.id);
@@ -1045,6 +1477,34 @@ chrome.cast._emitConnecting = function() {
 	}
 };
 
+/**
+ * How hard the native side is looking for receivers: 'active' while the picker is open or there's no session,
+ * 'passive' while there is one and 'paused' while the app is in the background.
+ */
+chrome.cast.discoveryMode = null;
+
+var _discoveryModeListeners = [];
+chrome.cast.addDiscoveryModeListener = function(cb) {
+	_discoveryModeListeners.push(cb);
+};
+
+chrome.cast.removeDiscoveryModeListener = function(cb) {
+	if (_discoveryModeListeners.indexOf(cb) > -1) {
+		_discoveryModeListeners.splice(_discoveryModeListeners.indexOf(cb), 1);
+	}
+};
+
+chrome.cast.getDiscoveryMode = function(successCallback, errorCallback) {
+	execute('getDiscoveryMode', function(err, mode) {
+		if (!err) {
+			chrome.cast.discoveryMode = mode;
+			successCallback && successCallback(mode);
+		} else {
+			handleError(err, errorCallback);
+		}
+	});
+};
+
 chrome.cast._ = {
 	receiverUnavailable: function() {
 		_receiverListener(chrome.cast.ReceiverAvailability.UNAVAILABLE);
@@ -1054,6 +1514,12 @@ chrome.cast._ = {
 		_receiverListener(chrome.cast.ReceiverAvailability.AVAILABLE);
 		_receiverAvailable = true;
 	},
+	discoveryModeChanged: function(mode) {
+		chrome.cast.discoveryMode = mode;
+		for (var n = 0; n < _discoveryModeListeners.length; n++) {
+			_discoveryModeListeners[n](mode);
+		}
+	},
 	routeAdded: function(route) {
 		if (!_routeList[route.id]) {
 			route.el = createRouteElement(route);
@@ -1068,27 +1534,101 @@ chrome.cast._ = {
 			delete _routeList[route.id];
 		}
 	},
-	sessionUpdated: function(isAlive, session) {
-		if (session && session.sessionId && _sessions[session.sessionId]) {
-			_sessions[session.sessionId]._update(isAlive, session);
+	routeChanged: function(route) {
+		if (_routeList[route.id]) {
+			var el = _routeList[route.id].el;
+			route.el = el;
+			route.el.textContent = route.name;
+			if (route.unconfirmed) {
+				el.classList.add('unconfirmed');
+			} else {
+				el.classList.remove('unconfirmed');
+			}
+			_routeList[route.id] = route;
+		} else {
+			this.routeAdded(route);
 		}
 	},
-	mediaUpdated: function(media) {
-		if (media && media.mediaSessionId !== undefined && _currentMedia) {
-			_currentMedia._update(media);
+	routeSnapshot: function(snapshot) {
+		var ids = {};
+		for (var n = 0; n < snapshot.routes.length; n++) {
+			ids[snapshot.routes[n].id] = true;
+			this.routeChanged(snapshot.routes[n]);
+		}
+		for (var id in _routeList) {
+			if (!ids[id]) {
+				this.routeRemoved(_routeList[id]);
+			}
+		}
+		_routeVersion = snapshot.version;
+	},
+	routesUpdated: function(update) {
+		if (_routeVersion === -1 || update.version <= _routeVersion) {
+			// Still waiting for the snapshot, or it already had this one
+			return;
+		} else if (update.version !== _routeVersion + 1) {
+			// Missed one - start over from a snapshot
+			_routeVersion = -1;
+			execute('emitAllRoutes');
+			return;
+		}
+		var n;
+		for (n = 0; update.added && n < update.added.length; n++) {
+			this.routeAdded(update.added[n]);
+		}
+		for (n = 0; update.changed && n < update.changed.length; n++) {
+			this.routeChanged(update.changed[n]);
+		}
+		for (n = 0; update.removed && n < update.removed.length; n++) {
+			this.routeRemoved({ id: update.removed[n] });
+		}
+		_routeVersion = update.version;
+	},
+	sessionUpdated: function(isAlive, update) {
+		var session;
+		if (isAlive) {
+			session = mergeUpdate('session:' + update.sessionId, update);
+		} else {
+			// No full update will follow for a session that ended, so it's applied even in the middle of a resync
+			session = mergeFinalUpdate('session:' + update.sessionId, update, _sessions[update.sessionId]);
+			delete _updateState['session:' + update.sessionId];
+			delete _updateState['media:' + update.sessionId];
+			delete _media[update.sessionId];
+		}
+		if (session && _sessions[update.sessionId]) {
+			_sessions[update.sessionId]._update(isAlive, session);
+		}
+	},
+	mediaUpdated: function(update) {
+		var media = mergeUpdate('media:' + update.sessionId, update);
+		if (media && media.mediaSessionId !== undefined && _media[update.sessionId]) {
+			_media[update.sessionId]._update(media);
 		}
 	},
 	mediaLoaded: function(media) {
 		if (_sessions[media.sessionId]) {
 			console.log('mediaLoaded');
-			_currentMedia = new chrome.cast.media.Media(media.sessionId, media.mediaSessionId);
-			_currentMedia._update(media);
+			var loaded = _media[media.sessionId] = new chrome.cast.media.Media(media.sessionId, media.mediaSessionId);
+			loaded._update(media);
 
-			_sessions[media.sessionId].emit('_mediaListener', _currentMedia);
+			_sessions[media.sessionId].emit('_mediaListener', loaded);
 		} else {
 			console.log('mediaLoaded --- but there is no session tied to it', media);
 		}
 	},
+	sessionReconnecting: function(sessionId, attempt) {
+		// Not a teardown - the session stays and comes back with sessionReconnected, or ends with sessionUpdated
+		var session = _sessions[sessionId];
+		if (session && session.status !== chrome.cast.SessionStatus.RECONNECTING) {
+			session.status = chrome.cast.SessionStatus.RECONNECTING;
+			session.emit('_sessionUpdated', true);
+		}
+	},
+	sessionReconnected: function(sessionId) {
+		if (_sessions[sessionId]) {
+			_sessions[sessionId].status = chrome.cast.SessionStatus.CONNECTED;
+		}
+	},
 	sessionJoined: function(obj) {
 		var sessionId = obj.sessionId;
 		var appId = obj.appId;
@@ -1120,6 +1660,91 @@ function execute (action) {
 	cordova.exec(function (result) { callback && callback(null, result); }, function(err) { callback && callback(err); }, "Chromecast", action, args);
 }
 
+/**
+ * Same as execute, for a command that works on one session - the native side has one per receiver
+ * @param  {string} sessionId 
+ * @param  {string} action    
+ */
+function executeOnSession (sessionId, action) {
+	var command = [].slice.call(arguments, 1);
+	var args = ['sessionCommand', sessionId, command];
+	if (command[command.length-1] instanceof Function) {
+		args.push(command.pop());
+	}
+	execute.apply(null, args);
+}
+
+/**
+ * Applies a versioned full or delta update from the native side to the last known copy of the object.
+ * If an update was missed the copy is dropped and a full one is requested.
+ * @param  {string} key    
+ * @param  {Object} update { sessionId, version, full, data } or { sessionId, version, full, changes, removed }
+ * @return {Object}        The merged object, or null while waiting for a full update
+ */
+function mergeUpdate(key, update) {
+	var state = _updateState[key];
+
+	if (update.full) {
+		state = _updateState[key] = { version: update.version, data: update.data };
+	} else if (state && state.resyncing) {
+		return null;
+	} else if (!state || update.version !== state.version + 1) {
+		_updateState[key] = { resyncing: true };
+		execute('requestFullUpdate', update.sessionId);
+		return null;
+	} else {
+		for (var field in update.changes) {
+			state.data[field] = update.changes[field];
+		}
+		var removed = update.removed || [];
+		for (var n = 0; n < removed.length; n++) {
+			delete state.data[removed[n]];
+		}
+		state.version = update.version;
+	}
+
+	return state.data;
+}
+
+/**
+ * Applies the last update for an object that is going away, whatever state its copy is in - there is
+ * nothing left to resync from.
+ * @param  {string} key    
+ * @param  {Object} update As for mergeUpdate
+ * @param  {Object} known  What to start from when there is no usable copy, may be undefined
+ * @return {Object}        The merged object
+ */
+function mergeFinalUpdate(key, update, known) {
+	var state = _updateState[key];
+	var base = update.full ? {} : (state && state.data) || known || {};
+	var data = {};
+	var field;
+	for (field in base) {
+		data[field] = base[field];
+	}
+	var changes = update.full ? update.data : update.changes;
+	for (field in changes) {
+		data[field] = changes[field];
+	}
+	var removed = update.removed || [];
+	for (var n = 0; n < removed.length; n++) {
+		delete data[removed[n]];
+	}
+	return data;
+}
+
+/**
+ * Receives everything sent down the native event channel and hands it to chrome.cast._
+ */
+function handleEvent(err, evt) {
+	if (typeof evt === 'string') {
+		evt = JSON.parse(evt);
+	}
+	if (!err && evt && chrome.cast._[evt.event]) {
+		chrome.cast._[evt.event].apply(chrome.cast._, evt.args || []);
+	}
+}
+
 function handleError(err, callback) {
 	var errorCode = chrome.cast.ErrorCode.UNKNOWN;
 	var errorDescription = err;
@@ -1141,6 +1766,9 @@ function handleError(err, callback) {
 	} else if (err.toUpperCase() === 'CHANNEL_ERROR') {
 		errorCode = chrome.cast.ErrorCode.CHANNEL_ERROR;
 		errorDescription = 'A channel to the receiver is not available.';
+	} else if (err.toUpperCase() === 'QUEUE_FULL') {
+		errorCode = chrome.cast.ErrorCode.CHANNEL_ERROR;
+		errorDescription = 'Too many messages are waiting to be sent.';
 	} else if (err.toUpperCase() === 'SESSION_ERROR') {
 		errorCode = chrome.cast.ErrorCode.SESSION_ERROR;
 		errorDescription = 'A session could not be created, or a session was invalid.';
@@ -1156,6 +1784,7 @@ function handleError(err, callback) {
 execute('setup', function(err) {
 	if (!err) {
 		chrome.cast.isAvailable = true;
+		execute('eventChannel', handleEvent);
 	} else {
 		throw new Error('Unable to setup chrome.cast API' + err);
 	}
@@ -1,10 +1,10 @@
 package acidhax.cordova.chromecast;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.android.gms.cast.*;
 
@@ -12,23 +12,25 @@ import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.CordovaWebView;
 import org.apache.cordova.CallbackContext;
 import org.apache.cordova.CordovaInterface;
+import org.apache.cordova.PluginResult;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import android.app.Activity;
-import android.app.AlertDialog;
-import android.content.DialogInterface;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v7.media.MediaRouter;
 import android.support.v7.media.MediaRouteSelector;
 import android.support.v7.media.MediaRouter.RouteInfo;
 import android.util.Log;
-import android.widget.ArrayAdapter;
 
 public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdatedListener, ChromecastOnSessionUpdatedListener {
 	
 	private static final String SETTINGS_NAME= "CordovaChromecastSettings";
+	private static final long ROUTE_CONFIRM_TIMEOUT = 15000;
+	private static final long WARM_IDLE_TIMEOUT = 30000;
 	
     private MediaRouter mMediaRouter;
     private MediaRouteSelector mMediaRouteSelector;
@@ -40,12 +42,108 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
     private String lastAppId = null;
     
     private SharedPreferences settings;
+    private ChromecastDeviceCache knownDevices;
+    
+    private Handler handler = new Handler(Looper.getMainLooper());
+    private ChromecastRoutePicker picker = null;
+    // A remembered receiver that was picked before discovery found it again - main thread only
+    private String pendingRouteId = null;
+    private CallbackContext pendingRouteCallback = null;
+    
+    // The receiver used last time, connected ahead of launch / join once discovery finds it - main thread only
+    private String warmRouteId = null;
+    private ChromecastSession warmSession = null;
+    private Runnable warmTimeout = new Runnable() {
+		public void run() {
+			Chromecast.this.coolDown();
+		}
+    };
+    // Connect to the most likely receiver while the picker is open
+    private volatile boolean speculativeConnect = false;
+    private Runnable pendingRouteTimeout = new Runnable() {
+		public void run() {
+			CallbackContext callbackContext = Chromecast.this.pendingRouteCallback;
+			Chromecast.this.pendingRouteId = null;
+			Chromecast.this.pendingRouteCallback = null;
+			if (callbackContext != null) {
+				callbackContext.error("timeout");
+			}
+		}
+    };
    
     
-    private volatile ChromecastSession currentSession;
+    private ChromecastSessionRegistry sessions = new ChromecastSessionRegistry();
+    private ConcurrentHashMap<String, ChromecastGroupPlayback> groupPlayback = new ConcurrentHashMap<String, ChromecastGroupPlayback>();
+    
+    private ChromecastLog logger = new ChromecastLog();
+    
+    private ChromecastActionRegistry actions = new ChromecastActionRegistry();
+    // The actions that work on a single session, by name and arity - sessionCommand runs these
+    private HashMap<String, ChromecastSessionAction> sessionActions = new HashMap<String, ChromecastSessionAction>();
+    private ChromecastOperationTracker operations = new ChromecastOperationTracker(this.logger);
+    private ChromecastMediaUpdateCoalescer mediaUpdates = new ChromecastMediaUpdateCoalescer(this);
+    private ChromecastDeltaEncoder deltas = new ChromecastDeltaEncoder();
+    
+    private volatile CallbackContext eventCallback;
+    
+    private ChromecastDiscoveryScheduler discovery = new ChromecastDiscoveryScheduler(new ChromecastDiscoveryScheduler.Listener() {
+		public void onDiscoveryModeChanged(String mode) {
+			log(ChromecastLog.DEBUG, "Discovery mode %s", mode);
+			Chromecast.this.sendEvent("discoveryModeChanged", mode);
+		}
+    });
+    
+    private void log(int level, String format, Object... args) {
+    	this.logger.log(level, format, args);
+    }
+    
+    /**
+     * Pushes an event down the long-lived event channel - chrome.cast._[event] is called with args on the javascript side
+     * @param event
+     * @param args
+     */
+    private void sendEvent(String event, Object... args) {
+    	JSONObject out = new JSONObject();
+    	try {
+    		JSONArray params = new JSONArray();
+    		for (Object arg : args) {
+    			params.put(arg);
+    		}
+    		out.put("event", event);
+    		out.put("args", params);
+    	} catch (JSONException e) {
+    		e.printStackTrace();
+    		return;
+    	}
+    	
+    	this.sendEventResult(event, new PluginResult(PluginResult.Status.OK, out));
+    }
+    
+    /**
+     * Same as sendEvent, for arguments that are already JSON text - the javascript side parses the whole
+     * event once instead of the arguments going through JSONObjects on this side
+     * @param event
+     * @param args
+     */
+    private void sendRawEvent(String event, String... args) {
+    	StringBuilder out = new StringBuilder(64);
+    	out.append("{\"event\":").append(JSONObject.quote(event)).append(",\"args\":[");
+    	for (int i = 0; i < args.length; i++) {
+    		out.append(i > 0 ? "," : "").append(args[i]);
+    	}
+    	out.append("]}");
+    	
+    	this.sendEventResult(event, new PluginResult(PluginResult.Status.OK, out.toString()));
+    }
     
-    private void log(String s) {
-    	this.webView.sendJavascript("console.log('" + s + "');");
+    private void sendEventResult(String event, PluginResult result) {
+    	CallbackContext channel = this.eventCallback;
+    	if (channel == null) {
+    		log(ChromecastLog.DEBUG, "No event channel, dropping %s", event);
+    		return;
+    	}
+    	result.setKeepCallback(true);
+    	channel.sendPluginResult(result);
     }
 
     
@@ -56,13 +154,37 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
         this.settings = this.cordova.getActivity().getSharedPreferences(SETTINGS_NAME, 0);
         this.lastSessionId = settings.getString("lastSessionId", "");
         this.lastAppId = settings.getString("lastAppId", "");
+        this.knownDevices = new ChromecastDeviceCache(this.settings, this.logger);
+        
+        this.registerActions();
+    }
+    
+    /**
+     * In the background there's nobody to pick a receiver - stop asking the router to look for them
+     */
+    public void onPause(boolean multitasking) {
+    	super.onPause(multitasking);
+    	this.discovery.setForeground(false);
+    }
+    
+    public void onResume(boolean multitasking) {
+    	super.onResume(multitasking);
+    	this.discovery.setForeground(true);
+    }
+    
+    /**
+     * The page is going away - so is the javascript end of the event channel
+     */
+    public void onReset() {
+    	super.onReset();
+    	this.eventCallback = null;
     }
     
     public void onDestroy() {
     	super.onDestroy();
     	
-    	if (this.currentSession != null) {
-//    		this.currentSession.kill(new ChromecastSessionCallback() {
+    	if (this.sessions.getDefault() != null) {
+//    		this.sessions.getDefault().kill(new ChromecastSessionCallback() {
 //				void onSuccess(Object object) {	}
 //				void onError(String reason) {}
 //    		});
@@ -71,57 +193,316 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
     
     @Override
     public boolean execute(String action, JSONArray args, CallbackContext cbContext) throws JSONException {
-    	try {
-    		Method[] list = this.getClass().getMethods();
-    		Method methodToExecute = null;
-    		for (Method method : list) {
-    			if (method.getName().equals(action)) {
-    				Type[] types = method.getGenericParameterTypes();
-    				if (args.length() + 1 == types.length) { // +1 is the cbContext
-    					boolean isValid = true;
-        				for (int i = 0; i < args.length(); i++) {
-            				Class arg = args.get(i).getClass();
-            				if (types[i] == arg) {
-            					isValid = true;
-            				} else {
-            					isValid = false;
-            					break;
-            				}
-        				}
-        				if (isValid) {
-            				methodToExecute = method;
-            				break;
-        				}
-    				}
-    			}
-    		}
-    		if (methodToExecute != null) {
-    			Type[] types = methodToExecute.getGenericParameterTypes();
-    			Object[] variableArgs = new Object[types.length];
-    			for (int i = 0; i < args.length(); i++) {
-    				variableArgs[i] = args.get(i);
-    			}
-    			variableArgs[variableArgs.length-1] = cbContext;
-        		Class<?> r = methodToExecute.getReturnType();
-        		if (r == boolean.class) {
-            		return (Boolean) methodToExecute.invoke(this, variableArgs);
-        		} else {
-        			methodToExecute.invoke(this, variableArgs);
-        			return true;
-        		}
-    		} else {
-    			return false;
-    		}
-		} catch (IllegalAccessException e) {
-            e.printStackTrace();
-            return false;
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-            return false;
-        } catch (InvocationTargetException e) {
-            e.printStackTrace();
-            return false;
-        }
+    	return this.actions.dispatch(action, args, cbContext);
+    }
+    
+    /**
+     * Builds the action table used by execute - each entry unpacks (and coerces) its javascript arguments
+     * and calls the matching public method below
+     */
+    private void registerActions() {
+    	this.actions.register("setup", 0, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setup(callbackContext);
+			}
+    	});
+    	this.actions.register("eventChannel", 0, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				eventChannel(callbackContext);
+			}
+    	});
+    	this.actions.register("initialize", 3, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				initialize(args.getString(0), args.getString(1), args.getString(2), callbackContext);
+			}
+    	});
+    	this.actions.register("requestSession", 0, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				requestSession(callbackContext);
+			}
+    	});
+    	this.actions.register("selectRoute", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				selectRoute(args.getString(0), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("setReceiverVolumeLevel", 1, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setReceiverVolumeLevel(session, args.getDouble(0), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("setReceiverMuted", 1, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setReceiverMuted(session, args.getBoolean(0), callbackContext);
+			}
+    	});
+    	this.actions.register("stopSession", 0, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				stopSession(callbackContext);
+			}
+    	});
+    	this.registerSessionAction("sendMessage", 2, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				sendMessage(session, args.getString(0), args.getString(1), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("sendRequest", 2, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				sendRequest(session, args.getString(0), args.getString(1), ChromecastRpc.DEFAULT_TIMEOUT, callbackContext);
+			}
+    	});
+    	this.registerSessionAction("sendRequest", 3, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				sendRequest(session, args.getString(0), args.getString(1), args.getLong(2), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("setMessageWindow", 1, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setMessageWindow(session, null, args.getInt(0), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("setMessageWindow", 2, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setMessageWindow(session, args.getString(0), args.getInt(1), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("setMessageEncoding", 2, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setMessageEncoding(session, args.getString(0), args.getString(1), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("getMessageQueueStats", 0, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				getMessageQueueStats(session, callbackContext);
+			}
+    	});
+    	ChromecastSessionAction addMessageListener = new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				addMessageListener(session, args.getString(0), callbackContext);
+			}
+    	};
+    	this.registerSessionAction("addMessageListener", 1, addMessageListener);
+    	// chrome.cast.js calls this one "addListener"
+    	this.registerSessionAction("addListener", 1, addMessageListener);
+    	this.registerSessionAction("loadMedia", 6, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				loadMedia(session, args.getString(0), args.getString(1), args.getInt(2), args.getString(3), args.getBoolean(4), args.getDouble(5), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("mediaPlay", 0, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				mediaPlay(session, callbackContext);
+			}
+    	});
+    	this.registerSessionAction("mediaPause", 0, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				mediaPause(session, callbackContext);
+			}
+    	});
+    	this.registerSessionAction("mediaSeek", 2, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				mediaSeek(session, args.getInt(0), args.getString(1), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("setMediaVolume", 1, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setMediaVolume(session, args.getDouble(0), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("setMediaMuted", 1, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setMediaMuted(session, args.getBoolean(0), callbackContext);
+			}
+    	});
+    	this.registerSessionAction("mediaStop", 0, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				mediaStop(session, callbackContext);
+			}
+    	});
+    	this.registerSessionAction("sessionStop", 0, new ChromecastSessionAction() {
+			@Override
+			void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException {
+				sessionStop(session, callbackContext);
+			}
+    	});
+    	this.actions.register("emitAllRoutes", 0, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				emitAllRoutes(callbackContext);
+			}
+    	});
+    	this.actions.register("setSpeculativeConnect", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setSpeculativeConnect(args.getBoolean(0), callbackContext);
+			}
+    	});
+    	this.actions.register("getDiscoveryMode", 0, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				getDiscoveryMode(callbackContext);
+			}
+    	});
+    	this.actions.register("setRouteFilter", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setRouteFilter(args.getJSONArray(0), callbackContext);
+			}
+    	});
+    	this.actions.register("setMediaUpdateInterval", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setMediaUpdateInterval(args.getLong(0), callbackContext);
+			}
+    	});
+    	this.actions.register("requestFullUpdate", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				requestFullUpdate(args.getString(0), callbackContext);
+			}
+    	});
+    	this.actions.register("setLogLevel", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setLogLevel(args.getString(0), callbackContext);
+			}
+    	});
+    	this.actions.register("getLogs", 0, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				getLogs(-1, callbackContext);
+			}
+    	});
+    	this.actions.register("getLogs", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				getLogs(args.getLong(0), callbackContext);
+			}
+    	});
+    	this.actions.register("streamLogs", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				streamLogs(args.getString(0), callbackContext);
+			}
+    	});
+    	this.actions.register("executeBatch", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				executeBatch(args.getJSONArray(0), false, callbackContext);
+			}
+    	});
+    	this.actions.register("executeBatch", 2, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				executeBatch(args.getJSONArray(0), args.getBoolean(1), callbackContext);
+			}
+    	});
+    	this.actions.register("addSession", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				addSession(args.getString(0), callbackContext);
+			}
+    	});
+    	this.actions.register("setSessionGroup", 2, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setSessionGroup(args.getString(0), args.getJSONArray(1), callbackContext);
+			}
+    	});
+    	this.actions.register("sessionCommand", 2, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				sessionCommand(args.isNull(0) ? null : args.getString(0), args.getJSONArray(1), callbackContext);
+			}
+    	});
+    	this.actions.register("getPendingOperations", 0, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				getPendingOperations(callbackContext);
+			}
+    	});
+    	this.actions.register("setOperationTimeout", 2, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setOperationTimeout(args.getString(0), args.getLong(1), callbackContext);
+			}
+    	});
+    	this.actions.register("cancelPendingOperations", 0, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				cancelPendingOperations(callbackContext);
+			}
+    	});
+    	this.actions.register("groupLoad", 7, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				groupLoad(args.getString(0), args.getString(1), args.getString(2), args.getInt(3), args.getString(4), args.getBoolean(5), args.getDouble(6), callbackContext);
+			}
+    	});
+    	this.actions.register("groupPlay", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				groupPlay(args.getString(0), callbackContext);
+			}
+    	});
+    	this.actions.register("groupPause", 1, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				groupPause(args.getString(0), callbackContext);
+			}
+    	});
+    	this.actions.register("groupSeek", 3, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				groupSeek(args.getString(0), args.getDouble(1), args.getString(2), callbackContext);
+			}
+    	});
+    	this.actions.register("setGroupDriftThreshold", 2, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				setGroupDriftThreshold(args.getString(0), args.getLong(1), callbackContext);
+			}
+    	});
+    }
+    
+    /**
+     * Registers an action that works on a single session - called through execute it gets the default
+     * session, through sessionCommand the one(s) targeted
+     * @param action
+     * @param arity
+     * @param handler
+     */
+    private void registerSessionAction(String action, int arity, final ChromecastSessionAction handler) {
+    	this.actions.register(action, arity, new ChromecastAction() {
+			@Override
+			void execute(JSONArray args, CallbackContext callbackContext) throws JSONException {
+				handler.execute(Chromecast.this.sessions.getDefault(), args, callbackContext);
+			}
+    	});
+    	this.sessionActions.put(ChromecastActionRegistry.key(action, arity), handler);
     }
     
     private void setLastSessionId(String sessionId) {
@@ -141,6 +522,20 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
         return true;
     }
 
+    /**
+     * Keeps the callbackContext open as the channel every native event is sent down (see sendEvent)
+     * @param  callbackContext
+     */
+    public boolean eventChannel (CallbackContext callbackContext) {
+    	this.eventCallback = callbackContext;
+    	
+    	PluginResult result = new PluginResult(PluginResult.Status.NO_RESULT);
+    	result.setKeepCallback(true);
+    	callbackContext.sendPluginResult(result);
+    	
+    	return true;
+    }
+
     /**
      * Initialize all of the MediaRouter stuff with the AppId
      * For now, ignore the autoJoinPolicy and defaultActionPolicy; those will come later
@@ -154,12 +549,12 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
         final Chromecast that = this;
         this.appId = appId;
         
-        log("initialize " + autoJoinPolicy + " " + appId + " " + this.lastAppId);
+        log(ChromecastLog.DEBUG, "initialize %s %s %s", autoJoinPolicy, appId, this.lastAppId);
         if (autoJoinPolicy.equals("origin_scoped") && appId.equals(this.lastAppId)) {
-        	log("lastAppId " + lastAppId);
+        	log(ChromecastLog.DEBUG, "lastAppId %s", lastAppId);
         	autoConnect = true;
         } else if (autoJoinPolicy.equals("origin_scoped")) {
-        	log("setting lastAppId " + lastAppId);
+        	log(ChromecastLog.DEBUG, "setting lastAppId %s", lastAppId);
         	this.settings.edit().putString("lastAppId", appId).apply();
         }
         
@@ -170,11 +565,20 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
                 .addControlCategory(CastMediaControlIntent.categoryForCast(appId))
                 .build();
                 mMediaRouterCallback.registerCallbacks(that);
-                mMediaRouter.addCallback(mMediaRouteSelector, mMediaRouterCallback, MediaRouter.CALLBACK_FLAG_PERFORM_ACTIVE_SCAN);
+                discovery.attach(mMediaRouter, mMediaRouteSelector, mMediaRouterCallback);
                 callbackContext.success();
                 
+                mMediaRouterCallback.addUnconfirmedRoutes(knownDevices.getRoutes());
+                knownDevices.seen(mMediaRouterCallback.syncRoutes(mMediaRouter));
+                
+                if (!Chromecast.this.lastSessionId.equals("")) {
+                	Chromecast.this.warmRouteId = knownDevices.getLastUsedId();
+                	ChromecastRoute lastRoute = Chromecast.this.warmRouteId != null ? mMediaRouterCallback.getRoute(Chromecast.this.warmRouteId) : null;
+                	if (lastRoute != null) {
+                		Chromecast.this.warmUp(lastRoute);
+                	}
+                }
                 Chromecast.this.checkReceiverAvailable();
-                Chromecast.this.emitAllRoutes(null);
             }
         });
        
@@ -188,8 +592,9 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param  callbackContext
      */
     public boolean requestSession (final CallbackContext callbackContext) {
-    	if (this.currentSession != null) {
-    		callbackContext.success(this.currentSession.createSessionObject());
+    	ChromecastSession current = this.sessions.getDefault();
+    	if (current != null) {
+    		callbackContext.success(this.fullSessionObject(current));
     		return true;
     	}
     	
@@ -198,34 +603,39 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
     	final Activity activity = cordova.getActivity();
         activity.runOnUiThread(new Runnable() {
             public void run() {
-                mMediaRouter = MediaRouter.getInstance(activity.getApplicationContext());
-                final List<RouteInfo> routeList = mMediaRouter.getRoutes();
+                final List<ChromecastRoute> routeList = mMediaRouterCallback.getCastRoutes();
                 
-                AlertDialog.Builder builder = new AlertDialog.Builder(activity);
-            	builder.setTitle("Choose a Chromecast");
-            	CharSequence[] seq = new CharSequence[routeList.size() -1];
-            	for (int n = 1; n < routeList.size(); n++) {
-            		RouteInfo route = routeList.get(n);
-            		if (!route.getName().equals("Phone") && route.getId().indexOf("Cast") > -1) {
-            			seq[n-1] = route.getName();
-            		}
-            	}
-            	
-            	builder.setNegativeButton("cancel", new DialogInterface.OnClickListener() {
-                    @Override
-                    public void onClick(DialogInterface dialog, int which) {
-                        dialog.dismiss();
-                        callbackContext.error("cancel");
-                    }
-                });
-            	builder.setItems(seq, new DialogInterface.OnClickListener() {
-				    @Override
-				    public void onClick(DialogInterface dialog, int which) {
-				        RouteInfo selectedRoute = routeList.get(which + 1);
-				        Chromecast.this.createSession(selectedRoute, callbackContext);
-				    }
+                Chromecast.this.picker = new ChromecastRoutePicker(activity, routeList, new ChromecastRoutePicker.Listener() {
+					@Override
+					public void onRoutePicked(ChromecastRoute route) {
+						Chromecast.this.createSession(route, callbackContext);
+					}
+					
+					@Override
+					public void onCancel() {
+						callbackContext.error("cancel");
+					}
+					
+					@Override
+					public void onDismiss() {
+						Chromecast.this.picker = null;
+						Chromecast.this.discovery.setPickerOpen(false);
+						if (Chromecast.this.sessions.getDefault() == null) {
+							// Cancelled - nothing to keep a connection open for
+							Chromecast.this.coolDown();
+						}
+					}
                 });
-                builder.show();
+                Chromecast.this.picker.show();
+                Chromecast.this.discovery.setPickerOpen(true);
+                if (Chromecast.this.speculativeConnect) {
+                	ChromecastRoute likely = Chromecast.this.likelyRoute(routeList);
+                	if (likely != null) {
+                		Chromecast.this.warmUp(likely);
+                		// Held for as long as the picker is open - closing it decides what happens to it
+                		Chromecast.this.handler.removeCallbacks(Chromecast.this.warmTimeout);
+                	}
+                }
             }
         });
         
@@ -240,8 +650,9 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @return
      */
     public boolean selectRoute (final String routeId, final CallbackContext callbackContext) {
-    	if (this.currentSession != null) {
-    		callbackContext.success(this.currentSession.createSessionObject());
+    	ChromecastSession current = this.sessions.getDefault();
+    	if (current != null) {
+    		callbackContext.success(this.fullSessionObject(current));
     		return true;
     	}
     	
@@ -250,14 +661,10 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
     	final Activity activity = cordova.getActivity();
         activity.runOnUiThread(new Runnable() {
             public void run() {
-                mMediaRouter = MediaRouter.getInstance(activity.getApplicationContext());
-                final List<RouteInfo> routeList = mMediaRouter.getRoutes();
-                
-                for (RouteInfo route : routeList) {
-                	if (route.getId().equals(routeId)) {
-                		Chromecast.this.createSession(route, callbackContext);
-                		return;
-                	}
+                ChromecastRoute route = mMediaRouterCallback.getRoute(routeId);
+                if (route != null) {
+                	Chromecast.this.createSession(route, callbackContext);
+                	return;
                 }
                 
                 callbackContext.error("No route found");
@@ -269,36 +676,67 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
     }
 
 	/**
-	 * Helper for the creating of a session! The user-selected RouteInfo needs to be passed to a new ChromecastSession 
-	 * @param routeInfo
+	 * Swaps the default session - discovery relaxes while there is any session
+	 * @param session
+	 */
+	private void setCurrentSession(ChromecastSession session) {
+		this.sessions.setDefault(session);
+		this.discovery.setHasSession(!this.sessions.isEmpty());
+	}
+	
+	/**
+	 * Helper for the creating of a session! The user-selected route needs to be passed to a new ChromecastSession 
+	 * @param route
+	 * @param callbackContext
+	 */
+    private void createSession(final ChromecastRoute route, final CallbackContext callbackContext) {
+    	this.createSession(route, callbackContext, true);
+    }
+    
+	/**
+	 * @param route
 	 * @param callbackContext
+	 * @param makeDefault - false to start another session alongside the default one
 	 */
-    private void createSession(RouteInfo routeInfo, final CallbackContext callbackContext) {
-    	this.currentSession = new ChromecastSession(routeInfo, this.cordova, this, this);
+    private void createSession(final ChromecastRoute route, final CallbackContext callbackContext, boolean makeDefault) {
+    	if (!route.isConfirmed()) {
+    		this.awaitRoute(route.getId(), callbackContext);
+    		return;
+    	}
+    	final ChromecastSession launching = this.takeSession(route);
+    	if (makeDefault || this.sessions.getDefault() == null) {
+    		this.setCurrentSession(launching);
+    	}
         
         // Launch the app.
-        this.currentSession.launch(this.appId, new ChromecastSessionCallback() {
+        launching.launch(this.appId, new ChromecastSessionCallback() {
 
 			@Override
 			void onSuccess(Object object) {
 				ChromecastSession session = (ChromecastSession) object;
 				if (object == null) {
 					onError("unknown");
-				} else if (session == Chromecast.this.currentSession){
-					Chromecast.this.setLastSessionId(Chromecast.this.currentSession.getSessionId());
+				} else {
+					Chromecast.this.sessions.put(session);
+					if (session == Chromecast.this.sessions.getDefault()) {
+						Chromecast.this.setLastSessionId(session.getSessionId());
+					}
+					Chromecast.this.knownDevices.succeeded(route.getId());
 					
 					if (callbackContext != null) {
-						callbackContext.success(session.createSessionObject());
+						callbackContext.success(Chromecast.this.fullSessionObject(session));
 					} else {
-						Chromecast.this.webView.sendJavascript("chrome.cast._.sessionJoined(" + Chromecast.this.currentSession.createSessionObject().toString() + ");");
+						Chromecast.this.sendEvent("sessionJoined", Chromecast.this.fullSessionObject(session));
 					}
 				}
 			}
 
 			@Override
 			void onError(String reason) {
+				Chromecast.this.sessions.discard(launching);
+				Chromecast.this.discovery.setHasSession(!Chromecast.this.sessions.isEmpty());
 				if (reason != null) {
-					Chromecast.this.log("createSession onError " + reason);
+					Chromecast.this.log(ChromecastLog.WARN, "createSession onError %s", reason);
 					if (callbackContext != null) {
 						callbackContext.error(reason);
 					}
@@ -312,26 +750,123 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
         });
     }
     
-    private void joinSession(RouteInfo routeInfo) {
-    	ChromecastSession sessionJoinAttempt = new ChromecastSession(routeInfo, this.cordova, this, this);
+    /**
+     * Starts connecting to the last used receiver so a launch or join doesn't have to wait for it - main thread only
+     * @param route
+     */
+    private void warmUp(ChromecastRoute route) {
+    	if (this.warmSession != null || this.sessions.getDefault() != null || !route.isConfirmed()) {
+    		return;
+    	}
+    	log(ChromecastLog.DEBUG, "Warming up connection to %s", route.getName());
+    	this.warmRouteId = null;
+    	this.warmSession = new ChromecastSession(route, this.cordova, this.operations, this.logger, this.mediaUpdates, this);
+    	this.warmSession.warmUp();
+    	this.handler.postDelayed(this.warmTimeout, WARM_IDLE_TIMEOUT);
+    }
+    
+    /**
+     * Drops the warmed up connection if nothing took it - main thread only
+     */
+    private void coolDown() {
+    	this.handler.removeCallbacks(this.warmTimeout);
+    	if (this.warmSession != null) {
+    		log(ChromecastLog.DEBUG, "Warm connection to %s unused, disconnecting", this.warmSession.getRouteId());
+    		this.warmSession.disconnect();
+    		this.warmSession = null;
+    	}
+    }
+    
+    /**
+     * Guesses which receiver is about to be picked - the one used last time, or the only one there is
+     * @param routes - the routes in the picker
+     * @return the route, or null if there's no good guess
+     */
+    private ChromecastRoute likelyRoute(List<ChromecastRoute> routes) {
+    	String lastUsedId = this.knownDevices.getLastUsedId();
+    	ChromecastRoute only = null;
+    	int confirmed = 0;
+    	for (ChromecastRoute route : routes) {
+    		if (!route.isConfirmed()) {
+    			continue;
+    		}
+    		if (route.getId().equals(lastUsedId)) {
+    			return route;
+    		}
+    		only = route;
+    		confirmed++;
+    	}
+    	return confirmed == 1 ? only : null;
+    }
+    
+    /**
+     * Turns connecting to the most likely receiver while the picker is open on or off
+     * @param enabled
+     * @param callbackContext
+     * @return
+     */
+    public boolean setSpeculativeConnect(boolean enabled, CallbackContext callbackContext) {
+    	this.speculativeConnect = enabled;
+    	callbackContext.success();
+    	return true;
+    }
+    
+    /**
+     * Gets a session for a route - the warmed up one if it's for the same receiver - main thread only
+     * @param route
+     * @return
+     */
+    private ChromecastSession takeSession(ChromecastRoute route) {
+    	ChromecastSession session = this.warmSession;
+    	this.warmSession = null;
+    	this.handler.removeCallbacks(this.warmTimeout);
+    	if (session != null && session.getRouteId().equals(route.getId())) {
+    		return session;
+    	}
+    	if (session != null) {
+    		session.disconnect();
+    	}
+    	return new ChromecastSession(route, this.cordova, this.operations, this.logger, this.mediaUpdates, this);
+    }
+    
+    /**
+     * Waits for discovery to find a remembered receiver before starting a session on it - main thread only
+     * @param routeId
+     * @param callbackContext
+     */
+    private void awaitRoute(String routeId, CallbackContext callbackContext) {
+    	if (this.pendingRouteCallback != null) {
+    		this.pendingRouteCallback.error("cancel");
+    	}
+    	this.handler.removeCallbacks(this.pendingRouteTimeout);
+    	this.pendingRouteId = routeId;
+    	this.pendingRouteCallback = callbackContext;
+    	this.handler.postDelayed(this.pendingRouteTimeout, ROUTE_CONFIRM_TIMEOUT);
+    }
+    
+    private void joinSession(final ChromecastRoute route) {
+    	ChromecastSession sessionJoinAttempt = this.takeSession(route);
     	sessionJoinAttempt.join(this.appId, this.lastSessionId, new ChromecastSessionCallback() {
 
 			@Override
 			void onSuccess(Object object) {
-				if (Chromecast.this.currentSession == null) {
+				if (Chromecast.this.sessions.getDefault() == null) {
 					try {
-						Chromecast.this.currentSession = (ChromecastSession) object;
-						Chromecast.this.setLastSessionId(Chromecast.this.currentSession.getSessionId());
-						Chromecast.this.webView.sendJavascript("chrome.cast._.sessionJoined(" + Chromecast.this.currentSession.createSessionObject().toString() + ");");
+						ChromecastSession session = (ChromecastSession) object;
+						Chromecast.this.sessions.put(session);
+						Chromecast.this.setCurrentSession(session);
+						Chromecast.this.setLastSessionId(session.getSessionId());
+						Chromecast.this.knownDevices.succeeded(route.getId());
+						Chromecast.this.sendEvent("sessionJoined", Chromecast.this.fullSessionObject(session));
 					} catch (Exception e) {
-						log("wut.... " + e.getMessage() + e.getStackTrace());
+						log(ChromecastLog.ERROR, "joinSession failed %s", e);
 					}
 				}
 			}
 
 			@Override
 			void onError(String reason) {
-				log("sessionJoinAttempt error " +reason);
+				log(ChromecastLog.WARN, "sessionJoinAttempt error %s", reason);
 			}
     		
     	});
@@ -341,27 +876,24 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * Set the volume level on the receiver - this is a Chromecast volume, not a Media volume
      * @param  newLevel
      */
-    public boolean setReceiverVolumeLevel (Double newLevel, CallbackContext callbackContext) {
-    	if (this.currentSession != null) {
-        	this.currentSession.setVolume(newLevel, genericCallback(callbackContext));
+    public boolean setReceiverVolumeLevel (ChromecastSession session, Double newLevel, CallbackContext callbackContext) {
+    	if (session != null) {
+        	session.setVolume(newLevel, genericCallback(callbackContext));
         } else {
         	callbackContext.error("session_error");
         }
         return true;
     }
     
-    public boolean setReceiverVolumeLevel (Integer newLevel, CallbackContext callbackContext) {
-    	return this.setReceiverVolumeLevel(newLevel.doubleValue(), callbackContext);
-    }
 
     /**
      * Sets the muted boolean on the receiver - this is a Chromecast mute, not a Media mute
      * @param  muted           
      * @param  callbackContext 
      */
-    public boolean setReceiverMuted (Boolean muted, CallbackContext callbackContext) {
-        if (this.currentSession != null) {
-        	this.currentSession.setMute(muted, genericCallback(callbackContext));
+    public boolean setReceiverMuted (ChromecastSession session, Boolean muted, CallbackContext callbackContext) {
+        if (session != null) {
+        	session.setMute(muted, genericCallback(callbackContext));
         } else {
         	callbackContext.error("session_error");
         }
@@ -383,9 +915,9 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param  message         
      * @param  callbackContext
      */
-    public boolean sendMessage (String namespace, String message, final CallbackContext callbackContext) {
-        if (this.currentSession != null) {
-        	this.currentSession.sendMessage(namespace, message, new ChromecastSessionCallback() {
+    public boolean sendMessage (ChromecastSession session, String namespace, String message, final CallbackContext callbackContext) {
+        if (session != null) {
+        	session.sendMessage(namespace, message, new ChromecastSessionCallback() {
 
 				@Override
 				void onSuccess(Object object) {
@@ -397,21 +929,100 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
 					callbackContext.error(reason);					
 				}
         	});
+        } else {
+        	callbackContext.error("session_error");
+        }
+        return true;
+    }
+    
+    /**
+     * Sends a JSON message to the receiver and waits for its reply - the receiver has to answer on the same
+     * namespace with the "requestId" that was added to the message
+     * @param  namespace       
+     * @param  message         A JSON object
+     * @param  timeout         Milliseconds to wait for the reply
+     * @param  callbackContext Called with the reply
+     */
+    public boolean sendRequest (ChromecastSession session, String namespace, String message, long timeout, final CallbackContext callbackContext) {
+        if (session != null) {
+        	session.sendRequest(namespace, message, timeout, new ChromecastSessionCallback() {
+
+				@Override
+				void onSuccess(Object object) {
+					callbackContext.success((String) object);
+				}
+
+				@Override
+				void onError(String reason) {
+					callbackContext.error(reason);					
+				}
+        	});
+        } else {
+        	callbackContext.error("session_error");
         }
         return true;
     }
     
     
+    /**
+     * Sets how many custom messages on a namespace may be waiting on the Cast channel at once
+     * @param namespace       null sets the default for namespaces that haven't been used yet
+     * @param window
+     * @param callbackContext
+     * @return
+     */
+    public boolean setMessageWindow(ChromecastSession session, String namespace, int window, CallbackContext callbackContext) {
+    	if (session != null) {
+    		session.setMessageWindow(namespace, window);
+    		callbackContext.success();
+    	} else {
+    		callbackContext.error("session_error");
+    	}
+    	return true;
+    }
+    
+    /**
+     * Turns compression of large custom messages on or off for a namespace
+     * @param namespace
+     * @param encoding        deflate | none
+     * @param callbackContext
+     * @return
+     */
+    public boolean setMessageEncoding(ChromecastSession session, String namespace, String encoding, CallbackContext callbackContext) {
+    	if (session != null) {
+    		session.setMessageEncoding(namespace, encoding, genericCallback(callbackContext));
+    	} else {
+    		callbackContext.error("session_error");
+    	}
+    	return true;
+    }
+    
+    /**
+     * Sends back the outbound message queue depth and throughput counters for each namespace
+     * @param callbackContext
+     * @return
+     */
+    public boolean getMessageQueueStats(ChromecastSession session, CallbackContext callbackContext) {
+    	if (session != null) {
+    		callbackContext.success(session.getMessageQueueStats());
+    	} else {
+    		callbackContext.error("session_error");
+    	}
+    	return true;
+    }
+    
     /**
      * Adds a listener to a specific namespace
      * @param namespace
      * @param callbackContext
      * @return
      */
-    public boolean addMessageListener(String namespace, CallbackContext callbackContext) {
-    	if (this.currentSession != null) {
-    		this.currentSession.addMessageListener(namespace);
+    public boolean addMessageListener(ChromecastSession session, String namespace, CallbackContext callbackContext) {
+    	if (session != null) {
+    		session.addMessageListener(namespace);
     		callbackContext.success();
+    	} else {
+    		callbackContext.error("session_error");
     	}
     	return true;
     }
@@ -426,10 +1037,9 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param  loadReuqest.currentTime Where to begin playing from
      * @param  callbackContext 
      */
-    public boolean loadMedia (String contentId, String contentType, Integer duration, String streamType, Boolean autoPlay, Double currentTime, final CallbackContext callbackContext) {
-        
-    	if (this.currentSession != null) {
-    		return this.currentSession.loadMedia(contentId, contentType, duration, streamType, autoPlay, currentTime, 
+    public boolean loadMedia (ChromecastSession session, String contentId, String contentType, Integer duration, String streamType, Boolean autoPlay, Double currentTime, final CallbackContext callbackContext) {
+    	if (session != null) {
+    		return session.loadMedia(contentId, contentType, duration, streamType, autoPlay, currentTime, 
     				new ChromecastSessionCallback() {
 
 						@Override
@@ -437,7 +1047,9 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
 							if (object == null) {
 								onError("unknown");
 							} else {
-								callbackContext.success((JSONObject) object);
+								JSONObject media = (JSONObject) object;
+								Chromecast.this.deltas.reset("media:" + media.optString("sessionId"));
+								callbackContext.success(media);
 							}
 						}
 
@@ -452,18 +1064,15 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
     		return false;
     	}
     }
-    public boolean loadMedia (String contentId, String contentType, Integer duration, String streamType, Boolean autoPlay, Integer currentTime, final CallbackContext callbackContext) {
-    	return this.loadMedia (contentId, contentType, duration, streamType, autoPlay, new Double(currentTime.doubleValue()), callbackContext);
-    }
     
     /**
      * Play on the current media in the current session
      * @param callbackContext
      * @return
      */
-    public boolean mediaPlay(CallbackContext callbackContext) {
-    	if (currentSession != null) {
-    		currentSession.mediaPlay(genericCallback(callbackContext));
+    public boolean mediaPlay(ChromecastSession session, CallbackContext callbackContext) {
+    	if (session != null) {
+    		session.mediaPlay(genericCallback(callbackContext));
     	} else {
     		callbackContext.error("session_error");
     	}
@@ -475,9 +1084,9 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param callbackContext
      * @return
      */
-    public boolean mediaPause(CallbackContext callbackContext) {
-    	if (currentSession != null) {
-    		currentSession.mediaPause(genericCallback(callbackContext));
+    public boolean mediaPause(ChromecastSession session, CallbackContext callbackContext) {
+    	if (session != null) {
+    		session.mediaPause(genericCallback(callbackContext));
     	} else {
     		callbackContext.error("session_error");
     	}
@@ -492,9 +1101,9 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param callbackContext
      * @return
      */
-    public boolean mediaSeek(Integer seekTime, String resumeState, CallbackContext callbackContext) {
-    	if (currentSession != null) {
-    		currentSession.mediaSeek(seekTime.longValue() * 1000, resumeState, genericCallback(callbackContext));
+    public boolean mediaSeek(ChromecastSession session, Integer seekTime, String resumeState, CallbackContext callbackContext) {
+    	if (session != null) {
+    		session.mediaSeek(seekTime.longValue() * 1000, resumeState, genericCallback(callbackContext));
     	} else {
     		callbackContext.error("session_error");
     	}
@@ -508,9 +1117,9 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param callbackContext
      * @return
      */
-    public boolean setMediaVolume(Double level, CallbackContext callbackContext) {
-    	if (currentSession != null) {
-    		currentSession.mediaSetVolume(level, genericCallback(callbackContext));
+    public boolean setMediaVolume(ChromecastSession session, Double level, CallbackContext callbackContext) {
+    	if (session != null) {
+    		session.mediaSetVolume(level, genericCallback(callbackContext));
     	} else {
     		callbackContext.error("session_error");
     	}
@@ -524,9 +1133,9 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param callbackContext
      * @return
      */
-    public boolean setMediaMuted(Boolean muted, CallbackContext callbackContext) {
-    	if (currentSession != null) {
-    		currentSession.mediaSetMuted(muted, genericCallback(callbackContext));
+    public boolean setMediaMuted(ChromecastSession session, Boolean muted, CallbackContext callbackContext) {
+    	if (session != null) {
+    		session.mediaSetMuted(muted, genericCallback(callbackContext));
     	} else {
     		callbackContext.error("session_error");
     	}
@@ -539,9 +1148,9 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param callbackContext
      * @return
      */
-    public boolean mediaStop(CallbackContext callbackContext) {
-    	if (currentSession != null) {
-    		currentSession.mediaStop(genericCallback(callbackContext));
+    public boolean mediaStop(ChromecastSession session, CallbackContext callbackContext) {
+    	if (session != null) {
+    		session.mediaStop(genericCallback(callbackContext));
     	} else {
     		callbackContext.error("session_error");
     	}
@@ -554,11 +1163,14 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param callbackContext
      * @return
      */
-    public boolean sessionStop (CallbackContext callbackContext) {
-    	if (this.currentSession != null) {
-    		this.currentSession.kill(genericCallback(callbackContext));
-    		this.currentSession = null;
-    		this.setLastSessionId("");
+    public boolean sessionStop (ChromecastSession session, CallbackContext callbackContext) {
+    	if (session != null) {
+    		session.kill(genericCallback(callbackContext));
+    		if (session == this.sessions.getDefault()) {
+    			this.setLastSessionId("");
+    		}
+    		this.sessions.discard(session);
+    		this.discovery.setHasSession(!this.sessions.isEmpty());
     	} else {
     		callbackContext.success();
     	}
@@ -566,21 +1178,302 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
     	return true;
     }
 
-    public boolean emitAllRoutes(CallbackContext callbackContext) {
-    	final Activity activity = cordova.getActivity();
+    /**
+     * Sets how often media status updates are sent down to javascript - player state changes are always sent at once
+     * @param interval        Milliseconds, 0 sends every update
+     * @param callbackContext
+     * @return
+     */
+    public boolean setMediaUpdateInterval(long interval, CallbackContext callbackContext) {
+    	this.mediaUpdates.setInterval(interval);
+    	callbackContext.success();
+    	return true;
+    }
+    
+    /**
+     * Resends the whole session and media objects for a session, for when javascript has missed a delta update
+     * @param sessionId
+     * @param callbackContext
+     * @return
+     */
+    public boolean requestFullUpdate(String sessionId, CallbackContext callbackContext) {
+    	String session = this.deltas.resync("session:" + sessionId, sessionId);
+    	if (session != null) {
+    		this.sendRawEvent("sessionUpdated", "true", session);
+    	}
+    	String media = this.deltas.resync("media:" + sessionId, sessionId);
+    	if (media != null) {
+    		this.sendRawEvent("mediaUpdated", media);
+    	}
+    	callbackContext.success();
+    	return true;
+    }
+    
+    /**
+     * Sets the lowest level of plugin diagnostics that gets recorded
+     * @param level           verbose | debug | info | warn | error | none
+     * @param callbackContext
+     * @return
+     */
+    public boolean setLogLevel(String level, CallbackContext callbackContext) {
+    	int value = ChromecastLog.parseLevel(level);
+    	if (value < 0) {
+    		callbackContext.error("invalid_parameter");
+    	} else {
+    		this.logger.setLevel(value);
+    		callbackContext.success();
+    	}
+    	return true;
+    }
+    
+    /**
+     * Sends back the buffered plugin diagnostics newer than the given sequence number
+     * @param since           Sequence number of the last entry already seen, -1 for everything
+     * @param callbackContext
+     * @return
+     */
+    public boolean getLogs(long since, CallbackContext callbackContext) {
+    	callbackContext.success(this.logger.getEntries(since));
+    	return true;
+    }
+    
+    /**
+     * Keeps the callbackContext open and sends it plugin diagnostics at or above the level as they are logged
+     * @param level           verbose | debug | info | warn | error, or none to stop
+     * @param callbackContext
+     * @return
+     */
+    public boolean streamLogs(String level, CallbackContext callbackContext) {
+    	int value = ChromecastLog.parseLevel(level);
+    	if (value < 0) {
+    		callbackContext.error("invalid_parameter");
+    	} else {
+    		this.logger.stream(value, callbackContext);
+    	}
+    	return true;
+    }
+    
+    /**
+     * Runs several actions from a single bridge call and answers with one array of results
+     * @param commands        Array of [action, arg1, arg2, ...]
+     * @param pipelined       Send every command at once instead of waiting for each one to finish
+     * @param callbackContext
+     * @return
+     */
+    public boolean executeBatch(JSONArray commands, boolean pipelined, CallbackContext callbackContext) {
+    	new ChromecastBatch(this.actions, this.webView, commands, pipelined, callbackContext).run();
+    	return true;
+    }
+
+    /**
+     * Starts a session on another receiver, next to the default one - answers with the session that's
+     * already running there if there is one
+     * @param routeId
+     * @param callbackContext
+     * @return
+     */
+    public boolean addSession(final String routeId, final CallbackContext callbackContext) {
+    	ChromecastSession existing = this.sessions.getByRoute(routeId);
+    	if (existing != null && existing.getSessionId() != null) {
+    		callbackContext.success(this.fullSessionObject(existing));
+    		return true;
+    	}
     	
-        activity.runOnUiThread(new Runnable() {
-            public void run() {
-                mMediaRouter = MediaRouter.getInstance(activity.getApplicationContext());
-                List<RouteInfo> routeList = mMediaRouter.getRoutes();
-                
-                for (RouteInfo route : routeList) {
-                	if (!route.getName().equals("Phone") && route.getId().indexOf("Cast") > -1) {
-	        			Chromecast.this.webView.sendJavascript("chrome.cast._.routeAdded(" + routeToJSON(route) + ")");
-	        		}
-                }
-            }
-        });
+    	cordova.getActivity().runOnUiThread(new Runnable() {
+    		public void run() {
+    			ChromecastRoute route = mMediaRouterCallback.getRoute(routeId);
+    			if (route != null) {
+    				Chromecast.this.createSession(route, callbackContext, false);
+    			} else {
+    				callbackContext.error("No route found");
+    			}
+    		}
+    	});
+    	return true;
+    }
+    
+    /**
+     * Names a set of sessions so one sessionCommand can address all of them as "group:<name>"
+     * @param name
+     * @param sessionIds - empty to remove the group
+     * @param callbackContext
+     * @return
+     */
+    public boolean setSessionGroup(String name, JSONArray sessionIds, CallbackContext callbackContext) throws JSONException {
+    	this.sessions.setGroup(name, sessionIds);
+    	if (sessionIds.length() == 0) {
+    		ChromecastGroupPlayback playback = this.groupPlayback.remove(ChromecastSessionRegistry.GROUP_PREFIX + name);
+    		if (playback != null) {
+    			playback.release();
+    		}
+    	}
+    	callbackContext.success();
+    	return true;
+    }
+    
+    /**
+     * Runs a session command against other sessions than the default one
+     * @param target          A session id, "group:<name>", "*" for every session or null for the default one
+     * @param command         [action, arg1, arg2, ...]
+     * @param callbackContext Gets the result as is for a single session, otherwise an array of
+     *                        {sessionId, success, result}
+     * @return
+     */
+    public boolean sessionCommand(String target, JSONArray command, CallbackContext callbackContext) {
+    	final ChromecastSessionAction handler = this.sessionActions.get(ChromecastActionRegistry.key(command.optString(0), command.length() - 1));
+    	if (handler == null) {
+    		callbackContext.error("invalid_parameter");
+    		return true;
+    	}
+    	
+    	new ChromecastFanOut(this.webView, this.sessions.resolve(target), callbackContext) {
+			@Override
+			void dispatch(ChromecastSession session, String action, JSONArray args, CallbackContext callbackContext) {
+				try {
+					handler.execute(session, args, callbackContext);
+				} catch (JSONException e) {
+					callbackContext.error("invalid_parameter");
+				}
+			}
+    	}.run(command);
+    	return true;
+    }
+
+    /**
+     * Tells javascript what's still waiting on a receiver
+     * @param callbackContext - gets {count, oldestAge, types: {type: {count, oldestAge}}}, ages in ms
+     * @return
+     */
+    public boolean getPendingOperations(CallbackContext callbackContext) {
+    	callbackContext.success(this.operations.getStats());
+    	return true;
+    }
+    
+    /**
+     * @param type            launch | join | load | media | status | message
+     * @param timeout         ms before the operation fails with timeout, 0 to wait as long as it takes
+     * @param callbackContext
+     * @return
+     */
+    public boolean setOperationTimeout(String type, long timeout, CallbackContext callbackContext) {
+    	if (!this.operations.isKnownType(type) || timeout < 0) {
+    		callbackContext.error("invalid_parameter");
+    		return true;
+    	}
+    	this.operations.setDeadline(type, timeout);
+    	callbackContext.success();
+    	return true;
+    }
+    
+    /**
+     * Fails everything javascript asked for that's still waiting on a receiver with cancel - what the plugin
+     * runs on its own (status requests, recovery, round trip probes) carries on
+     * @param callbackContext - gets how many operations were cancelled
+     * @return
+     */
+    public boolean cancelPendingOperations(CallbackContext callbackContext) {
+    	callbackContext.success(this.operations.cancelRequested("cancel"));
+    	return true;
+    }
+    
+    /**
+     * @param target - see ChromecastSessionRegistry.resolve
+     * @return the playback that keeps the target's sessions in step
+     */
+    private ChromecastGroupPlayback groupPlayback(String target) {
+    	ChromecastGroupPlayback playback = this.groupPlayback.get(target);
+    	if (playback == null) {
+    		playback = new ChromecastGroupPlayback(this.sessions, target, this.logger);
+    		ChromecastGroupPlayback raced = this.groupPlayback.putIfAbsent(target, playback);
+    		if (raced != null) {
+    			playback = raced;
+    		}
+    	}
+    	return playback;
+    }
+    
+    /**
+     * Loads the same media on every session of the target and starts them together
+     * @param target          A session id, "group:<name>" or "*"
+     * @param contentId
+     * @param contentType
+     * @param duration
+     * @param streamType
+     * @param autoPlay
+     * @param currentTime
+     * @param callbackContext Gets an array of media objects, one per session
+     * @return
+     */
+    public boolean groupLoad(String target, String contentId, String contentType, Integer duration, String streamType, Boolean autoPlay, Double currentTime, final CallbackContext callbackContext) {
+    	this.groupPlayback(target).load(contentId, contentType, duration, streamType, autoPlay, currentTime, new ChromecastSessionCallback() {
+			@Override
+			void onSuccess(Object object) {
+				JSONArray media = (JSONArray) object;
+				for (int i = 0; i < media.length(); i++) {
+					Chromecast.this.deltas.reset("media:" + media.optJSONObject(i).optString("sessionId"));
+				}
+				callbackContext.success(media);
+			}
+
+			@Override
+			void onError(String reason) {
+				callbackContext.error(reason);
+			}
+    	});
+    	return true;
+    }
+    
+    /**
+     * Starts every session of the target at the same moment and keeps them there
+     * @param target
+     * @param callbackContext
+     * @return
+     */
+    public boolean groupPlay(String target, CallbackContext callbackContext) {
+    	this.groupPlayback(target).play(genericCallback(callbackContext));
+    	return true;
+    }
+    
+    public boolean groupPause(String target, CallbackContext callbackContext) {
+    	this.groupPlayback(target).pause(genericCallback(callbackContext));
+    	return true;
+    }
+    
+    /**
+     * @param target
+     * @param seekTime        Seconds
+     * @param resumeState     PLAYBACK_PAUSE, PLAYBACK_START or empty
+     * @param callbackContext
+     * @return
+     */
+    public boolean groupSeek(String target, Double seekTime, String resumeState, CallbackContext callbackContext) {
+    	this.groupPlayback(target).seek((long) (seekTime * 1000), resumeState, genericCallback(callbackContext));
+    	return true;
+    }
+    
+    /**
+     * @param target
+     * @param threshold       How far (ms) a session may drift from the rest of the target before it's seeked back
+     * @param callbackContext
+     * @return
+     */
+    public boolean setGroupDriftThreshold(String target, long threshold, CallbackContext callbackContext) {
+    	if (threshold <= 0) {
+    		callbackContext.error("invalid_parameter");
+    		return true;
+    	}
+    	this.groupPlayback(target).setDriftThreshold(threshold);
+    	callbackContext.success();
+    	return true;
+    }
+
+    /**
+     * Sends every known Cast route down the event channel - after this javascript only gets told what changed
+     * @param callbackContext
+     * @return
+     */
+    public boolean emitAllRoutes(CallbackContext callbackContext) {
+    	this.sendRawEvent("routeSnapshot", mMediaRouterCallback.getRouteSet().snapshot());
         
         if (callbackContext != null) {
         	callbackContext.success();
@@ -589,31 +1482,51 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
         return true;
     }
     
+    /**
+     * Tells javascript how hard receivers are being looked for
+     * @param callbackContext - gets active | passive | paused
+     * @return
+     */
+    public boolean getDiscoveryMode(CallbackContext callbackContext) {
+    	callbackContext.success(this.discovery.getMode());
+    	return true;
+    }
+    
+    /**
+     * Only tells javascript about receivers with all of the given capabilities - a new route snapshot follows
+     * @param capabilities    chrome.cast.Capability values, empty for every receiver
+     * @param callbackContext
+     * @return
+     */
+    public boolean setRouteFilter(JSONArray capabilities, CallbackContext callbackContext) throws JSONException {
+    	int mask = ChromecastRoute.parseCapabilities(capabilities);
+    	if (mask < 0) {
+    		callbackContext.error("invalid_parameter");
+    		return true;
+    	}
+    	mMediaRouterCallback.setRouteFilter(mask);
+    	this.checkReceiverAvailable();
+    	return this.emitAllRoutes(callbackContext);
+    }
+    
     /**
      * Checks to see how many receivers are available - emits the receiver status down to Javascript
      */
     private void checkReceiverAvailable() {
-    	final Activity activity = cordova.getActivity();
-    	
-        activity.runOnUiThread(new Runnable() {
-            public void run() {
-                mMediaRouter = MediaRouter.getInstance(activity.getApplicationContext());
-                List<RouteInfo> routeList = mMediaRouter.getRoutes();
-                boolean available = false;
-                
-                for (RouteInfo route: routeList) {
-                	if (!route.getName().equals("Phone") && route.getId().indexOf("Cast") > -1) {
-                		available = true;
-                		break;
-                	}
-                }
-                if (available || (Chromecast.this.currentSession != null && Chromecast.this.currentSession.isConnected())) {
-                	Chromecast.this.webView.sendJavascript("chrome.cast._.receiverAvailable()");
-                } else {
-                	Chromecast.this.webView.sendJavascript("chrome.cast._.receiverUnavailable()");
-                }
-            }
-        });
+    	boolean available = false;
+    	for (ChromecastRoute route : mMediaRouterCallback.getCastRoutes()) {
+    		// Remembered receivers don't count until discovery finds them
+    		if (route.isConfirmed()) {
+    			available = true;
+    			break;
+    		}
+    	}
+    	ChromecastSession current = this.sessions.getDefault();
+    	if (available || (current != null && current.isConnected())) {
+    		this.sendEvent("receiverAvailable");
+    	} else {
+    		this.sendEvent("receiverUnavailable");
+    	}
     }
     
     /**
@@ -642,16 +1555,27 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param router
      * @param route
      */
-    protected void onRouteAdded(MediaRouter router, final RouteInfo route) {
-    	if (this.autoConnect && this.currentSession == null && !route.getName().equals("Phone")) {
-    		log("Attempting to join route " + route.getName());
+    protected void onRouteAdded(MediaRouter router, final ChromecastRoute route) {
+    	this.knownDevices.seen(route);
+    	this.updatePicker(route);
+    	if (route.getId().equals(this.warmRouteId)) {
+    		this.warmUp(route);
+    	}
+    	if (route.getId().equals(this.pendingRouteId) && route.isCastRoute()) {
+    		CallbackContext callbackContext = this.pendingRouteCallback;
+    		this.handler.removeCallbacks(this.pendingRouteTimeout);
+    		this.pendingRouteId = null;
+    		this.pendingRouteCallback = null;
+    		this.createSession(route, callbackContext);
+    		this.checkReceiverAvailable();
+    		return;
+    	}
+    	if (this.autoConnect && this.sessions.getDefault() == null && route.isCastRoute()) {
+    		log(ChromecastLog.DEBUG, "Attempting to join route %s", route.getName());
     		this.joinSession(route);
     	} else {
-    		log("For some reason, not attempting to join route " + route.getName() + ", " + this.currentSession + ", " + this.autoConnect);
+    		log(ChromecastLog.VERBOSE, "Not attempting to join route %s, %s, %s", route.getName(), this.sessions.getDefault(), this.autoConnect);
     	}
-    	if (!route.getName().equals("Phone") && route.getId().indexOf("Cast") > -1) {
-			this.webView.sendJavascript("chrome.cast._.routeAdded(" + routeToJSON(route) + ")");
-		}
     	this.checkReceiverAvailable();
     }
 
@@ -660,12 +1584,44 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
      * @param router
      * @param route
      */
-	protected void onRouteRemoved(MediaRouter router, RouteInfo route) {
+	protected void onRouteRemoved(MediaRouter router, ChromecastRoute route) {
+		if (this.picker != null) {
+			this.picker.remove(route.getId());
+		}
 		this.checkReceiverAvailable();
-		if (!route.getName().equals("Phone") && route.getId().indexOf("Cast") > -1) {
-			this.webView.sendJavascript("chrome.cast._.routeRemoved(" + routeToJSON(route) + ")");
+	}
+	
+	/**
+	 * Called when the details of a route changed
+	 * @param router
+	 * @param route
+	 */
+	protected void onRouteChanged(MediaRouter router, ChromecastRoute route) {
+		this.updatePicker(route);
+	}
+	
+	/**
+	 * Keeps an open picker in line with the route set - main thread only
+	 * @param route
+	 */
+	private void updatePicker(ChromecastRoute route) {
+		if (this.picker == null) {
+			return;
+		}
+		if (mMediaRouterCallback.getRouteSet().contains(route.getId())) {
+			this.picker.put(route);
+		} else {
+			this.picker.remove(route.getId());
 		}
 	}
+	
+	/**
+	 * Called when the set of Cast routes changed
+	 * @param diff - {version, added, changed, removed}
+	 */
+	protected void onRoutesUpdated(String diff) {
+		this.sendRawEvent("routesUpdated", diff);
+	}
 
 	/**
 	 * Called when a route is selected through the MediaRouter
@@ -673,7 +1629,8 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
 	 * @param route
 	 */
 	protected void onRouteSelected(MediaRouter router, RouteInfo route) {	
-		this.createSession(route, null);
+		ChromecastRoute known = mMediaRouterCallback.getRoute(route.getId());
+		this.createSession(known != null ? known : new ChromecastRoute(route), null);
 	}
 
 	/**
@@ -682,49 +1639,92 @@ public class Chromecast extends CordovaPlugin implements ChromecastOnMediaUpdate
 	 * @param route
 	 */
 	protected void onRouteUnselected(MediaRouter router, RouteInfo route) {}
-	
+
 	/**
-	 * Simple helper to convert a route to JSON for passing down to the javascript side
-	 * @param route
+	 * Gets the session object to hand to javascript in full - the next sessionUpdated will be a full one too
+	 * @param session
 	 * @return
 	 */
-	private JSONObject routeToJSON(RouteInfo route) {
-		JSONObject obj = new JSONObject();
-		
-		try {
-			obj.put("name", route.getName());
-			obj.put("id", route.getId());
-		} catch (JSONException e) {
-			e.printStackTrace();
-		}
-		
-		return obj;
+	private JSONObject fullSessionObject(ChromecastSession session) {
+		this.deltas.reset("session:" + session.getSessionId());
+		return session.createSessionObject();
 	}
 
 	@Override
-	public void onMediaUpdated(JSONObject media) {
-		this.webView.sendJavascript("chrome.cast._.mediaUpdated(" + media.toString() +");");
+	public void onMediaUpdated(ChromecastMediaUpdate media) {
+		String sessionId = media.getSessionId();
+		String update = this.deltas.encode("media:" + sessionId, sessionId, ChromecastMediaStatusWriter.FIELDS, media.getValues());
+		if (update != null) {
+			this.sendRawEvent("mediaUpdated", update);
+		}
 	}
 
 	@Override
 	public void onSessionUpdated(boolean isAlive, JSONObject session) {
+		String sessionId = session.optString("sessionId");
+		String update = this.deltas.encode("session:" + sessionId, sessionId, session);
 		if (isAlive) {
-			this.webView.sendJavascript("chrome.cast._.sessionUpdated(true, " + session.toString() + ");");
+			if (update != null) {
+				this.sendRawEvent("sessionUpdated", "true", update);
+			}
 		} else {
-			log("SESSION DESTROYYYY");
-			this.webView.sendJavascript("chrome.cast._.sessionUpdated(false, " + session.toString() + ");");
-			this.currentSession = null;
+			log(ChromecastLog.INFO, "Session %s ended", sessionId);
+			if (update == null) {
+				update = this.deltas.resync("session:" + sessionId, sessionId);
+			}
+			this.sendRawEvent("sessionUpdated", "false", update);
+			this.mediaUpdates.clear(sessionId);
+			this.deltas.forget("session:" + sessionId);
+			this.deltas.forget("media:" + sessionId);
+			this.sessions.remove(sessionId);
+			this.releaseGroupPlayback();
+			this.discovery.setHasSession(!this.sessions.isEmpty());
+		}
+	}
+	
+	/**
+	 * Lets go of group playback for targets that no longer have any session in them
+	 */
+	private void releaseGroupPlayback() {
+		Iterator<Map.Entry<String, ChromecastGroupPlayback>> it = this.groupPlayback.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, ChromecastGroupPlayback> entry = it.next();
+			if (this.sessions.resolve(entry.getKey()).isEmpty()) {
+				entry.getValue().release();
+				it.remove();
+			}
 		}
 	}
 
+	/**
+	 * The connection to a session dropped and it's being rejoined - javascript keeps the session
+	 */
+	@Override
+	public void onSessionReconnecting(String sessionId, int attempt) {
+		log(ChromecastLog.INFO, "Session %s reconnecting, attempt %d", sessionId, attempt);
+		this.mediaUpdates.clear(sessionId);
+		this.sendEvent("sessionReconnecting", sessionId, attempt);
+	}
+
+	@Override
+	public void onSessionReconnected(JSONObject session) {
+		String sessionId = session.optString("sessionId");
+		log(ChromecastLog.INFO, "Session %s reconnected", sessionId);
+		this.sendEvent("sessionReconnected", sessionId);
+		// Whatever changed while it was gone comes as a full update
+		this.deltas.reset("session:" + sessionId);
+		this.onSessionUpdated(true, session);
+	}
+
 	@Override
-	public void onMediaLoaded(JSONObject media) {
-		this.webView.sendJavascript("chrome.cast._.mediaLoaded(" + media.toString() +");");
+	public void onMediaLoaded(ChromecastMediaUpdate media) {
+		this.deltas.reset("media:" + media.getSessionId());
+		this.sendRawEvent("mediaLoaded", media.toJSON());
 	}
 
 	@Override
 	public void onMessage(ChromecastSession session, String namespace, String message) {
-		this.webView.sendJavascript("chrome.cast._.onMessage('" + session.getSessionId() +"', '" + namespace + "', '" + message  + "')");
+		this.sendEvent("onMessage", session.getSessionId(), namespace, message);
 	}
 }
 
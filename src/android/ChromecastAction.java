@@ -0,0 +1,12 @@
+package acidhax.cordova.chromecast;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/*
+ * A single entry in the ChromecastActionRegistry - unpacks the javascript arguments and runs the action.
+ */
+public abstract class ChromecastAction {
+	abstract void execute(JSONArray args, CallbackContext callbackContext) throws JSONException;
+}
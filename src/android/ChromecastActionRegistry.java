@@ -0,0 +1,52 @@
+package acidhax.cordova.chromecast;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/*
+ * Lookup table from an action name and its number of javascript arguments to the handler that runs it.
+ * Built once when the plugin is initialized so execute() never has to reflect over the plugin.
+ */
+public class ChromecastActionRegistry {
+	private HashMap<String, ChromecastAction> actions = new HashMap<String, ChromecastAction>();
+	private HashSet<String> names = new HashSet<String>();
+	
+	/**
+	 * Registers a handler for an action called with the given number of arguments (not counting the callback)
+	 * @param action
+	 * @param arity
+	 * @param handler
+	 */
+	public void register(String action, int arity, ChromecastAction handler) {
+		this.actions.put(key(action, arity), handler);
+		this.names.add(action);
+	}
+	
+	/**
+	 * Runs the handler registered for the action, or errors the callback if there is none
+	 * @param action
+	 * @param args
+	 * @param callbackContext
+	 * @return true once the callbackContext has been taken care of
+	 * @throws JSONException
+	 */
+	public boolean dispatch(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
+		ChromecastAction handler = this.actions.get(key(action, args.length()));
+		if (handler != null) {
+			handler.execute(args, callbackContext);
+		} else if (this.names.contains(action)) {
+			callbackContext.error("invalid_parameter");
+		} else {
+			callbackContext.error("Unknown action: " + action);
+		}
+		return true;
+	}
+	
+	static String key(String action, int arity) {
+		return action + "/" + arity;
+	}
+}
@@ -0,0 +1,127 @@
+package acidhax.cordova.chromecast;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/*
+ * Runs an ordered list of actions that crossed the bridge together and answers them with one result array.
+ * Each command is a javascript array of the form [action, arg1, arg2, ...].
+ * Pipelined batches fire every command straight away and let the Cast API queue them, otherwise
+ * each command waits for the previous one to finish (for example load -> seek).
+ * Whatever hasn't answered after TIMEOUT fails with "timeout", so one stuck command can't hold up the rest.
+ * Only actions that answer exactly once can be batched - anything else fails with "invalid_parameter".
+ */
+public class ChromecastBatch {
+	private static final long TIMEOUT = 60000;
+	// Listeners and streams (eventChannel, streamLogs, addMessageListener) keep their callback, and pickers wait on the user
+	private static final HashSet<String> ACTIONS = new HashSet<String>(Arrays.asList(
+		"setReceiverVolumeLevel", "setReceiverMuted", "stopSession", "sessionStop", "sendMessage", "sendRequest",
+		"setMessageWindow", "setMessageEncoding", "getMessageQueueStats", "loadMedia", "mediaPlay", "mediaPause",
+		"mediaSeek", "mediaStop", "setMediaVolume", "setMediaMuted", "emitAllRoutes", "setSpeculativeConnect",
+		"getDiscoveryMode", "setRouteFilter", "setMediaUpdateInterval", "requestFullUpdate", "setLogLevel", "getLogs",
+		"setSessionGroup", "getPendingOperations", "setOperationTimeout", "cancelPendingOperations", "groupLoad",
+		"groupPlay", "groupPause", "groupSeek", "setGroupDriftThreshold"
+	));
+	
+	private ChromecastActionRegistry actions;
+	private JSONArray commands;
+	private boolean pipelined;
+	private CallbackContext callbackContext;
+	
+	private ChromecastResultAggregator results;
+	private volatile boolean timedOut = false;
+	private Handler handler = new Handler(Looper.getMainLooper());
+	
+	private Runnable timeout = new Runnable() {
+		public void run() {
+			ChromecastBatch.this.timedOut = true;
+			ChromecastBatch.this.results.failRemaining("timeout");
+		}
+	};
+	
+	public ChromecastBatch(ChromecastActionRegistry actions, CordovaWebView webView, JSONArray commands, boolean pipelined, CallbackContext callbackContext) {
+		this.actions = actions;
+		this.commands = commands;
+		this.pipelined = pipelined;
+		this.callbackContext = callbackContext;
+		this.results = new ChromecastResultAggregator(webView, callbackContext, "action", commands.length()) {
+			@Override
+			void onEntryFinished(int index, boolean done) {
+				ChromecastBatch.this.onCommandFinished(index, done);
+			}
+		};
+	}
+	
+	/**
+	 * Starts running the batch - the callbackContext is answered once every command has finished
+	 */
+	public void run() {
+		if (this.commands.length() == 0) {
+			this.callbackContext.success(new JSONArray());
+			return;
+		}
+		this.handler.postDelayed(this.timeout, TIMEOUT);
+		if (this.pipelined) {
+			for (int i = 0; i < this.commands.length(); i++) {
+				this.runCommand(i);
+			}
+		} else {
+			this.runCommand(0);
+		}
+	}
+	
+	/**
+	 * Dispatches a single command with a CallbackContext that reports back to this batch
+	 * @param index
+	 */
+	private void runCommand(int index) {
+		if (this.timedOut) {
+			return;
+		}
+		CallbackContext entryContext = this.results.getEntry(index);
+		try {
+			JSONArray command = this.commands.getJSONArray(index);
+			String action = command.getString(0);
+			this.results.setLabel(index, action);
+			JSONArray args = new JSONArray();
+			for (int n = 1; n < command.length(); n++) {
+				args.put(command.get(n));
+			}
+			
+			if (!ACTIONS.contains(action)) {
+				entryContext.error("invalid_parameter");
+			} else {
+				this.actions.dispatch(action, args, entryContext);
+			}
+		} catch (JSONException e) {
+			entryContext.error("invalid_parameter");
+		}
+	}
+	
+	/**
+	 * Moves the batch along once a command has answered
+	 * @param index
+	 * @param done
+	 */
+	private void onCommandFinished(int index, boolean done) {
+		if (done) {
+			this.handler.removeCallbacks(this.timeout);
+		} else if (!this.pipelined) {
+			// Posted rather than called, so a command that answers straight away doesn't grow the stack
+			final int next = index + 1;
+			this.handler.post(new Runnable() {
+				public void run() {
+					ChromecastBatch.this.runCommand(next);
+				}
+			});
+		}
+	}
+}
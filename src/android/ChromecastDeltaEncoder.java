@@ -0,0 +1,204 @@
+package acidhax.cordova.chromecast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/*
+ * Remembers the last media / session object sent to javascript (per key) and turns each new one into
+ * just the top level fields that changed. Every update carries a version so javascript can tell when it
+ * has missed one and ask for a full resync.
+ *
+ * Full update:  { sessionId, version, full: true, data: {...} }
+ * Delta update: { sessionId, version, full: false, changes: {...}, removed: [...] }
+ *
+ * Objects are compared and written as already serialized field values, so updates come out as JSON text.
+ */
+public class ChromecastDeltaEncoder {
+	private HashMap<String, Snapshot> snapshots = new HashMap<String, Snapshot>();
+	private StringBuilder buffer = new StringBuilder(256);
+	
+	private static class Snapshot {
+		int version = 0;
+		String[] fields;
+		String[] values;
+		boolean forceFull = true;
+	}
+	
+	/**
+	 * Encodes an object against the last one sent for the key
+	 * @param key
+	 * @param sessionId
+	 * @param obj
+	 * @return the update to send, or null if nothing changed
+	 */
+	public String encode(String key, String sessionId, JSONObject obj) {
+		ArrayList<String> fields = new ArrayList<String>();
+		ArrayList<String> values = new ArrayList<String>();
+		try {
+			Iterator<?> keys = obj.keys();
+			while (keys.hasNext()) {
+				String field = (String) keys.next();
+				fields.add(field);
+				values.add(toJSONValue(obj.get(field)));
+			}
+		} catch (JSONException e) {
+			this.reset(key);
+		}
+		return this.encode(key, sessionId, fields.toArray(new String[fields.size()]), values.toArray(new String[values.size()]));
+	}
+	
+	/**
+	 * Encodes an object, given as serialized field values (null for a missing field), against the last one sent for the key
+	 * @param key
+	 * @param sessionId
+	 * @param fields
+	 * @param values
+	 * @return the update to send, or null if nothing changed
+	 */
+	public synchronized String encode(String key, String sessionId, String[] fields, String[] values) {
+		Snapshot snapshot = this.snapshots.get(key);
+		if (snapshot == null) {
+			snapshot = new Snapshot();
+			this.snapshots.put(key, snapshot);
+		}
+		
+		boolean full = snapshot.forceFull;
+		StringBuilder out = this.buffer;
+		out.setLength(0);
+		
+		if (!full) {
+			boolean sameFields = snapshot.fields == fields || Arrays.equals(snapshot.fields, fields);
+			HashMap<String, String> previous = null;
+			if (!sameFields) {
+				previous = new HashMap<String, String>();
+				for (int i = 0; i < snapshot.fields.length; i++) {
+					previous.put(snapshot.fields[i], snapshot.values[i]);
+				}
+			}
+			
+			boolean changed = false;
+			ArrayList<String> removed = null;
+			out.append("{\"changes\":{");
+			for (int i = 0; i < fields.length; i++) {
+				String before = sameFields ? snapshot.values[i] : previous.remove(fields[i]);
+				if (values[i] == null) {
+					if (before != null) {
+						removed = removed == null ? new ArrayList<String>() : removed;
+						removed.add(fields[i]);
+					}
+				} else if (!values[i].equals(before)) {
+					if (changed) {
+						out.append(',');
+					}
+					changed = true;
+					out.append(JSONObject.quote(fields[i])).append(':').append(values[i]);
+				}
+			}
+			out.append('}');
+			
+			if (previous != null) {
+				for (String field : previous.keySet()) {
+					if (previous.get(field) != null) {
+						removed = removed == null ? new ArrayList<String>() : removed;
+						removed.add(field);
+					}
+				}
+			}
+			if (removed != null) {
+				out.append(",\"removed\":[");
+				for (int i = 0; i < removed.size(); i++) {
+					out.append(i > 0 ? "," : "").append(JSONObject.quote(removed.get(i)));
+				}
+				out.append(']');
+			}
+			
+			if (!changed && removed == null) {
+				return null;
+			}
+		}
+		
+		snapshot.version++;
+		snapshot.fields = fields;
+		snapshot.values = values;
+		snapshot.forceFull = false;
+		
+		if (full) {
+			out.append("{\"data\":");
+			ChromecastMediaStatusWriter.toJSON(fields, values, out);
+		}
+		return this.envelope(sessionId, snapshot.version, full, out);
+	}
+	
+	/**
+	 * Builds a full update from the last object sent for the key, and bumps its version
+	 * @param key
+	 * @param sessionId
+	 * @return the update to send, or null if nothing has been sent for the key
+	 */
+	public synchronized String resync(String key, String sessionId) {
+		Snapshot snapshot = this.snapshots.get(key);
+		if (snapshot == null || snapshot.fields == null) {
+			return null;
+		}
+		snapshot.version++;
+		
+		StringBuilder out = this.buffer;
+		out.setLength(0);
+		out.append("{\"data\":");
+		ChromecastMediaStatusWriter.toJSON(snapshot.fields, snapshot.values, out);
+		return this.envelope(sessionId, snapshot.version, true, out);
+	}
+	
+	/**
+	 * Makes the next update for the key a full one, e.g. when javascript was just handed the whole object some other way
+	 * @param key
+	 */
+	public synchronized void reset(String key) {
+		Snapshot snapshot = this.snapshots.get(key);
+		if (snapshot != null) {
+			snapshot.forceFull = true;
+		}
+	}
+	
+	/**
+	 * Drops everything kept for the key
+	 * @param key
+	 */
+	public synchronized void forget(String key) {
+		this.snapshots.remove(key);
+	}
+	
+	/**
+	 * Finishes an update whose data / changes have already been written to out
+	 */
+	private String envelope(String sessionId, int version, boolean full, StringBuilder out) {
+		out.append(",\"sessionId\":").append(sessionId != null ? JSONObject.quote(sessionId) : "null")
+			.append(",\"version\":").append(version)
+			.append(",\"full\":").append(full)
+			.append('}');
+		return out.toString();
+	}
+	
+	/**
+	 * Serializes a single value taken out of a JSONObject the same way JSONObject.toString() would
+	 * @param value
+	 * @return
+	 * @throws JSONException
+	 */
+	private static String toJSONValue(Object value) throws JSONException {
+		if (value instanceof String) {
+			return JSONObject.quote((String) value);
+		} else if (value instanceof Number) {
+			return JSONObject.numberToString((Number) value);
+		} else if (value instanceof JSONObject || value instanceof JSONArray || value instanceof Boolean) {
+			return value.toString();
+		}
+		return "null";
+	}
+}
@@ -0,0 +1,191 @@
+package acidhax.cordova.chromecast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.content.SharedPreferences;
+
+/*
+ * Receivers we've seen recently, kept in the plugin's SharedPreferences so the picker has something to show
+ * straight after a cold start. Stored as a JSON array of {id, name, capabilities, lastSeen, lastSuccess}
+ * (wall clock milliseconds), newest success first. Entries not seen for MAX_AGE are forgotten.
+ * lastSeen is only moved on every SEEN_RESOLUTION, so a receiver that keeps turning up doesn't rewrite the
+ * preferences each time.
+ */
+public class ChromecastDeviceCache {
+	private static final String KEY = "knownDevices";
+	private static final int MAX_DEVICES = 16;
+	private static final long MAX_AGE = 30L * 24 * 60 * 60 * 1000;
+	private static final long SEEN_RESOLUTION = 60L * 60 * 1000;
+	
+	private static class Device {
+		String id;
+		String name;
+		int capabilities;
+		long lastSeen;
+		long lastSuccess;
+	}
+	
+	private SharedPreferences settings;
+	private ChromecastLog logger;
+	private LinkedHashMap<String, Device> devices = new LinkedHashMap<String, Device>();
+	
+	public ChromecastDeviceCache(SharedPreferences settings, ChromecastLog logger) {
+		this.settings = settings;
+		this.logger = logger;
+		this.load();
+	}
+	
+	/**
+	 * @return the remembered receivers as unconfirmed routes, most recently used first
+	 */
+	public synchronized List<ChromecastRoute> getRoutes() {
+		ArrayList<ChromecastRoute> routes = new ArrayList<ChromecastRoute>(this.devices.size());
+		for (Device device : this.sorted()) {
+			routes.add(new ChromecastRoute(device.id, device.name, device.capabilities));
+		}
+		return routes;
+	}
+	
+	/**
+	 * @return the route id of the receiver a session last worked on, or null
+	 */
+	public synchronized String getLastUsedId() {
+		Device last = null;
+		for (Device device : this.devices.values()) {
+			if (device.lastSuccess > 0 && (last == null || device.lastSuccess > last.lastSuccess)) {
+				last = device;
+			}
+		}
+		return last == null ? null : last.id;
+	}
+	
+	/**
+	 * Remembers a receiver discovery found
+	 * @param route
+	 */
+	public synchronized void seen(ChromecastRoute route) {
+		if (this.update(route, System.currentTimeMillis())) {
+			this.save();
+		}
+	}
+	
+	/**
+	 * Remembers every receiver in a discovery pass, writing the preferences once at most
+	 * @param routes
+	 */
+	public synchronized void seen(List<ChromecastRoute> routes) {
+		long now = System.currentTimeMillis();
+		boolean changed = false;
+		for (ChromecastRoute route : routes) {
+			changed |= this.update(route, now);
+		}
+		if (changed) {
+			this.save();
+		}
+	}
+	
+	/**
+	 * Notes that a session was launched on / joined to a receiver
+	 * @param routeId
+	 */
+	public synchronized void succeeded(String routeId) {
+		Device device = this.devices.get(routeId);
+		if (device != null) {
+			device.lastSuccess = device.lastSeen = System.currentTimeMillis();
+			this.save();
+		}
+	}
+	
+	/**
+	 * @return true if there is something new to save
+	 */
+	private boolean update(ChromecastRoute route, long now) {
+		if (!route.isConfirmed() || !route.isCastRoute()) {
+			return false;
+		}
+		Device device = this.devices.get(route.getId());
+		if (device != null && device.name.equals(route.getName()) && device.capabilities == route.getCapabilities()
+				&& now - device.lastSeen < SEEN_RESOLUTION) {
+			return false;
+		}
+		if (device == null) {
+			device = new Device();
+			device.id = route.getId();
+			this.devices.put(device.id, device);
+		}
+		device.name = route.getName();
+		device.capabilities = route.getCapabilities();
+		device.lastSeen = now;
+		return true;
+	}
+	
+	private List<Device> sorted() {
+		ArrayList<Device> sorted = new ArrayList<Device>(this.devices.values());
+		Collections.sort(sorted, new Comparator<Device>() {
+			@Override
+			public int compare(Device a, Device b) {
+				if (a.lastSuccess != b.lastSuccess) {
+					return a.lastSuccess > b.lastSuccess ? -1 : 1;
+				}
+				return a.lastSeen == b.lastSeen ? 0 : (a.lastSeen > b.lastSeen ? -1 : 1);
+			}
+		});
+		return sorted;
+	}
+	
+	private void load() {
+		long cutoff = System.currentTimeMillis() - MAX_AGE;
+		try {
+			JSONArray stored = new JSONArray(this.settings.getString(KEY, "[]"));
+			for (int i = 0; i < stored.length(); i++) {
+				JSONObject obj = stored.getJSONObject(i);
+				Device device = new Device();
+				device.id = obj.getString("id");
+				device.name = obj.optString("name", device.id);
+				device.capabilities = obj.optInt("capabilities", 0);
+				device.lastSeen = obj.optLong("lastSeen", 0);
+				device.lastSuccess = obj.optLong("lastSuccess", 0);
+				if (device.lastSeen >= cutoff) {
+					this.devices.put(device.id, device);
+				}
+			}
+		} catch (JSONException e) {
+			// Unreadable - start over
+			this.logger.log(ChromecastLog.WARN, "Couldn't read the known devices: %s", e);
+			this.devices.clear();
+		}
+	}
+	
+	private void save() {
+		List<Device> sorted = this.sorted();
+		// Over the limit - the ones we haven't used or seen for longest go
+		while (sorted.size() > MAX_DEVICES) {
+			this.devices.remove(sorted.remove(sorted.size() - 1).id);
+		}
+		
+		JSONArray out = new JSONArray();
+		try {
+			for (Device device : sorted) {
+				JSONObject obj = new JSONObject();
+				obj.put("id", device.id);
+				obj.put("name", device.name);
+				obj.put("capabilities", device.capabilities);
+				obj.put("lastSeen", device.lastSeen);
+				obj.put("lastSuccess", device.lastSuccess);
+				out.put(obj);
+			}
+		} catch (JSONException e) {
+			this.logger.log(ChromecastLog.WARN, "Couldn't save the known devices: %s", e);
+			return;
+		}
+		this.settings.edit().putString(KEY, out.toString()).apply();
+	}
+}
@@ -0,0 +1,136 @@
+package acidhax.cordova.chromecast;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.media.MediaRouteSelector;
+import android.support.v7.media.MediaRouter;
+
+/*
+ * Decides how hard the MediaRouter looks for receivers:
+ *   active  - the app is in the foreground and the picker is open or there's no session yet
+ *   passive - the app is in the foreground with a session, so only route changes the system sees anyway come in
+ *   paused  - the app is in the background, no discovery is requested at all
+ * The callback stays registered the whole time - only its flags change.
+ */
+public class ChromecastDiscoveryScheduler {
+	public static final String MODE_ACTIVE = "active";
+	public static final String MODE_PASSIVE = "passive";
+	public static final String MODE_PAUSED = "paused";
+	
+	public interface Listener {
+		void onDiscoveryModeChanged(String mode);
+	}
+	
+	private Listener listener;
+	private Handler handler = new Handler(Looper.getMainLooper());
+	
+	private MediaRouter router;
+	private MediaRouteSelector selector;
+	private MediaRouter.Callback callback;
+	
+	private boolean pickerOpen = false;
+	private boolean hasSession = false;
+	private boolean foreground = true;
+	private String mode = null;
+	
+	private Runnable apply = new Runnable() {
+		public void run() {
+			ChromecastDiscoveryScheduler.this.apply();
+		}
+	};
+	
+	public ChromecastDiscoveryScheduler(Listener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Starts discovery for the selector, in whatever mode fits right now
+	 * @param router
+	 * @param selector
+	 * @param callback
+	 */
+	public void attach(MediaRouter router, MediaRouteSelector selector, MediaRouter.Callback callback) {
+		synchronized (this) {
+			this.router = router;
+			this.selector = selector;
+			this.callback = callback;
+			this.mode = null;
+		}
+		this.update();
+	}
+	
+	public void setPickerOpen(boolean pickerOpen) {
+		synchronized (this) {
+			this.pickerOpen = pickerOpen;
+		}
+		this.update();
+	}
+	
+	public void setHasSession(boolean hasSession) {
+		synchronized (this) {
+			this.hasSession = hasSession;
+		}
+		this.update();
+	}
+	
+	public void setForeground(boolean foreground) {
+		synchronized (this) {
+			this.foreground = foreground;
+		}
+		this.update();
+	}
+	
+	/**
+	 * @return active | passive | paused, or null before attach
+	 */
+	public synchronized String getMode() {
+		return this.mode;
+	}
+	
+	private void update() {
+		String mode;
+		synchronized (this) {
+			if (this.router == null) {
+				return;
+			}
+			if (!this.foreground) {
+				mode = MODE_PAUSED;
+			} else if (this.pickerOpen || !this.hasSession) {
+				mode = MODE_ACTIVE;
+			} else {
+				mode = MODE_PASSIVE;
+			}
+			if (mode.equals(this.mode)) {
+				return;
+			}
+			this.mode = mode;
+		}
+		// The router has to be touched from the main thread
+		this.handler.post(this.apply);
+		if (this.listener != null) {
+			this.listener.onDiscoveryModeChanged(mode);
+		}
+	}
+	
+	private void apply() {
+		MediaRouter router;
+		MediaRouteSelector selector;
+		MediaRouter.Callback callback;
+		String mode;
+		synchronized (this) {
+			router = this.router;
+			selector = this.selector;
+			callback = this.callback;
+			mode = this.mode;
+		}
+		
+		int flags = 0;
+		if (MODE_ACTIVE.equals(mode)) {
+			flags = MediaRouter.CALLBACK_FLAG_PERFORM_ACTIVE_SCAN;
+		} else if (MODE_PASSIVE.equals(mode)) {
+			flags = MediaRouter.CALLBACK_FLAG_REQUEST_DISCOVERY;
+		}
+		// Adding a callback that's already there just replaces its flags
+		router.addCallback(selector, callback, flags);
+	}
+}
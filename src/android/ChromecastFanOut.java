@@ -0,0 +1,65 @@
+package acidhax.cordova.chromecast;
+
+import java.util.List;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/*
+ * Runs one command - [action, arg1, arg2, ...] - against several sessions at once.
+ * With a single session javascript gets that session's result as it is, otherwise an array of
+ * {sessionId, success, result} in the order of the sessions.
+ */
+public abstract class ChromecastFanOut {
+	private CordovaWebView webView;
+	private List<ChromecastSession> sessions;
+	private CallbackContext callbackContext;
+	
+	public ChromecastFanOut(CordovaWebView webView, List<ChromecastSession> sessions, CallbackContext callbackContext) {
+		this.webView = webView;
+		this.sessions = sessions;
+		this.callbackContext = callbackContext;
+	}
+	
+	/**
+	 * Runs the action against the session
+	 * @param session
+	 * @param action
+	 * @param args
+	 * @param callbackContext
+	 */
+	abstract void dispatch(ChromecastSession session, String action, JSONArray args, CallbackContext callbackContext);
+	
+	/**
+	 * @param command - [action, arg1, arg2, ...]
+	 */
+	public void run(JSONArray command) {
+		String action;
+		JSONArray args = new JSONArray();
+		try {
+			action = command.getString(0);
+			for (int n = 1; n < command.length(); n++) {
+				args.put(command.get(n));
+			}
+		} catch (JSONException e) {
+			this.callbackContext.error("invalid_parameter");
+			return;
+		}
+		
+		if (this.sessions.isEmpty()) {
+			this.callbackContext.error("session_error");
+		} else if (this.sessions.size() == 1) {
+			this.dispatch(this.sessions.get(0), action, args, this.callbackContext);
+		} else {
+			ChromecastResultAggregator results = new ChromecastResultAggregator(this.webView, this.callbackContext, "sessionId", this.sessions.size());
+			for (int i = 0; i < this.sessions.size(); i++) {
+				results.setLabel(i, this.sessions.get(i).getSessionId());
+			}
+			for (int i = 0; i < this.sessions.size(); i++) {
+				this.dispatch(this.sessions.get(i), action, args, results.getEntry(i));
+			}
+		}
+	}
+}
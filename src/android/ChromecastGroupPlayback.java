@@ -0,0 +1,452 @@
+package acidhax.cordova.chromecast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/*
+ * Plays the same media on several sessions in step.
+ * A command reaches each receiver about half its round trip after it's sent, so commands go out slowest
+ * receiver first and the others are held back by the difference - that way they all land together. When a
+ * command goes out late anyway, a play / seek starts that much further into the stream.
+ * While the group is playing, the stream positions reported by the receivers are compared every
+ * DRIFT_CHECK_INTERVAL and a receiver more than the drift threshold away from the median is seeked back in line.
+ */
+public class ChromecastGroupPlayback {
+	public static final long DEFAULT_DRIFT_THRESHOLD = 100;
+	
+	private static final int ROUND_TRIP_SAMPLES = 3;
+	private static final long ROUND_TRIP_MAX_AGE = 30000;
+	private static final long DRIFT_CHECK_INTERVAL = 5000;
+	
+	private ChromecastSessionRegistry sessions;
+	private String target;
+	private ChromecastLog logger;
+	private Handler handler = new Handler(Looper.getMainLooper());
+	
+	private volatile long driftThreshold = DEFAULT_DRIFT_THRESHOLD;
+	// Main thread only
+	private boolean watching = false;
+	// Goes up on every start and stop, so a drift check still out from before can tell it's stale
+	private int generation = 0;
+	
+	private Runnable driftCheck = new Runnable() {
+		public void run() {
+			ChromecastGroupPlayback.this.checkDrift();
+		}
+	};
+	
+	/*
+	 * One command, sent to one member at the position it should start from
+	 */
+	private static abstract class Command {
+		abstract void send(ChromecastSession session, long position, ChromecastSessionCallback callback);
+	}
+	
+	/*
+	 * Collects the answers of every member - fails with the first error
+	 */
+	private static class Join {
+		private ChromecastSessionCallback callback;
+		private Object[] results;
+		private int remaining;
+		private boolean failed = false;
+		
+		Join(int size, ChromecastSessionCallback callback) {
+			this.callback = callback;
+			this.results = new Object[size];
+			this.remaining = size;
+		}
+		
+		ChromecastSessionCallback member(final int index) {
+			return new ChromecastSessionCallback() {
+				@Override
+				void onSuccess(Object object) {
+					synchronized (Join.this) {
+						if (Join.this.failed) {
+							return;
+						}
+						Join.this.results[index] = object;
+						if (--Join.this.remaining > 0) {
+							return;
+						}
+					}
+					JSONArray out = new JSONArray();
+					for (Object result : Join.this.results) {
+						out.put(result);
+					}
+					Join.this.callback.onSuccess(out);
+				}
+				
+				@Override
+				void onError(String reason) {
+					synchronized (Join.this) {
+						if (Join.this.failed) {
+							return;
+						}
+						Join.this.failed = true;
+					}
+					Join.this.callback.onError(reason);
+				}
+			};
+		}
+	}
+	
+	/**
+	 * @param sessions
+	 * @param target - which sessions make up the group, see ChromecastSessionRegistry.resolve
+	 * @param logger
+	 */
+	public ChromecastGroupPlayback(ChromecastSessionRegistry sessions, String target, ChromecastLog logger) {
+		this.sessions = sessions;
+		this.target = target;
+		this.logger = logger;
+	}
+	
+	public void setDriftThreshold(long threshold) {
+		this.driftThreshold = threshold;
+	}
+	
+	/**
+	 * Loads the media paused everywhere, then starts it on all members at once
+	 * @param contentId
+	 * @param contentType
+	 * @param duration
+	 * @param streamType
+	 * @param autoPlay
+	 * @param currentTime - seconds
+	 * @param callback - gets an array of media objects, one per member
+	 */
+	public void load(final String contentId, final String contentType, final long duration, final String streamType, final boolean autoPlay, final double currentTime, final ChromecastSessionCallback callback) {
+		final List<ChromecastSession> members = this.members(callback);
+		if (members == null) {
+			return;
+		}
+		this.stopWatching();
+		
+		// Buffering takes as long as it takes - only the start can be lined up
+		Join loaded = new Join(members.size(), new ChromecastSessionCallback() {
+			@Override
+			void onSuccess(final Object media) {
+				if (!autoPlay) {
+					callback.onSuccess(media);
+					return;
+				}
+				ChromecastGroupPlayback.this.start(members, (long) (currentTime * 1000), new ChromecastSessionCallback() {
+					@Override
+					void onSuccess(Object object) {
+						callback.onSuccess(media);
+					}
+					
+					@Override
+					void onError(String reason) {
+						callback.onError(reason);
+					}
+				});
+			}
+			
+			@Override
+			void onError(String reason) {
+				callback.onError(reason);
+			}
+		});
+		for (int i = 0; i < members.size(); i++) {
+			members.get(i).loadMedia(contentId, contentType, duration, streamType, false, currentTime, loaded.member(i));
+		}
+	}
+	
+	/**
+	 * Starts every member from where the first one is
+	 * @param callback
+	 */
+	public void play(ChromecastSessionCallback callback) {
+		List<ChromecastSession> members = this.members(callback);
+		if (members != null) {
+			this.start(members, members.get(0).getApproximateStreamPosition(), callback);
+		}
+	}
+	
+	/**
+	 * @param callback
+	 */
+	public void pause(final ChromecastSessionCallback callback) {
+		final List<ChromecastSession> members = this.members(callback);
+		if (members == null) {
+			return;
+		}
+		this.stopWatching();
+		this.measure(members, new Runnable() {
+			public void run() {
+				ChromecastGroupPlayback.this.dispatch(members, 0, new Command() {
+					@Override
+					void send(ChromecastSession session, long position, ChromecastSessionCallback callback) {
+						session.mediaPause(callback);
+					}
+				}, callback);
+			}
+		});
+	}
+	
+	/**
+	 * @param position - ms
+	 * @param resumeState - PLAYBACK_PAUSE, PLAYBACK_START or empty to leave each member as it is
+	 * @param callback
+	 */
+	public void seek(final long position, final String resumeState, final ChromecastSessionCallback callback) {
+		final List<ChromecastSession> members = this.members(callback);
+		if (members == null) {
+			return;
+		}
+		if ("PLAYBACK_START".equals(resumeState)) {
+			this.start(members, position, callback);
+			return;
+		}
+		final boolean playing = !"PLAYBACK_PAUSE".equals(resumeState) && members.get(0).isPlaying();
+		this.stopWatching();
+		this.measure(members, new Runnable() {
+			public void run() {
+				ChromecastGroupPlayback.this.dispatch(members, position, new Command() {
+					@Override
+					void send(ChromecastSession session, long at, ChromecastSessionCallback callback) {
+						session.mediaSeek(playing ? at : position, resumeState, callback);
+					}
+				}, ChromecastGroupPlayback.this.watchAfter(playing, callback));
+			}
+		});
+	}
+	
+	/**
+	 * Stops looking for drift - the group is going away
+	 */
+	public void release() {
+		this.stopWatching();
+	}
+	
+	private List<ChromecastSession> members(ChromecastSessionCallback callback) {
+		List<ChromecastSession> members = this.sessions.resolve(this.target);
+		if (members.isEmpty()) {
+			callback.onError("session_error");
+			return null;
+		}
+		return members;
+	}
+	
+	/**
+	 * Seeks every member to the position and lets it play, all at the same moment
+	 */
+	private void start(final List<ChromecastSession> members, final long position, final ChromecastSessionCallback callback) {
+		this.stopWatching();
+		this.measure(members, new Runnable() {
+			public void run() {
+				ChromecastGroupPlayback.this.dispatch(members, position, new Command() {
+					@Override
+					void send(ChromecastSession session, long at, ChromecastSessionCallback callback) {
+						session.mediaSeek(at, "PLAYBACK_START", callback);
+					}
+				}, ChromecastGroupPlayback.this.watchAfter(true, callback));
+			}
+		});
+	}
+	
+	private ChromecastSessionCallback watchAfter(final boolean playing, final ChromecastSessionCallback callback) {
+		return new ChromecastSessionCallback() {
+			@Override
+			void onSuccess(Object object) {
+				if (playing) {
+					ChromecastGroupPlayback.this.handler.post(new Runnable() {
+						public void run() {
+							ChromecastGroupPlayback.this.startWatching();
+						}
+					});
+				}
+				callback.onSuccess(object);
+			}
+			
+			@Override
+			void onError(String reason) {
+				callback.onError(reason);
+			}
+		};
+	}
+	
+	/**
+	 * Refreshes the round trip of every member that wasn't measured lately, then runs next on the main thread.
+	 * A member that doesn't answer keeps its old estimate - being a little out is better than not playing.
+	 */
+	private void measure(List<ChromecastSession> members, final Runnable next) {
+		final ArrayList<ChromecastSession> stale = new ArrayList<ChromecastSession>();
+		for (ChromecastSession session : members) {
+			if (session.getRoundTripAge() > ROUND_TRIP_MAX_AGE) {
+				stale.add(session);
+			}
+		}
+		if (stale.isEmpty()) {
+			this.handler.post(next);
+			return;
+		}
+		
+		final int[] remaining = { stale.size() };
+		for (final ChromecastSession session : stale) {
+			this.sample(session, ROUND_TRIP_SAMPLES, new Runnable() {
+				public void run() {
+					synchronized (remaining) {
+						if (--remaining[0] > 0) {
+							return;
+						}
+					}
+					ChromecastGroupPlayback.this.handler.post(next);
+				}
+			});
+		}
+	}
+	
+	private void sample(final ChromecastSession session, final int count, final Runnable done) {
+		session.measureRoundTrip(new ChromecastSessionCallback() {
+			@Override
+			void onSuccess(Object object) {
+				if (count > 1) {
+					ChromecastGroupPlayback.this.sample(session, count - 1, done);
+				} else {
+					done.run();
+				}
+			}
+			
+			@Override
+			void onError(String reason) {
+				done.run();
+			}
+		});
+	}
+	
+	/**
+	 * Sends the command to every member so they all get it at the same moment - main thread only
+	 */
+	private void dispatch(List<ChromecastSession> members, final long position, final Command command, ChromecastSessionCallback callback) {
+		long slowest = 0;
+		for (ChromecastSession session : members) {
+			slowest = Math.max(slowest, session.getRoundTrip() / 2);
+		}
+		
+		Join join = new Join(members.size(), callback);
+		long now = SystemClock.uptimeMillis();
+		for (int i = 0; i < members.size(); i++) {
+			final ChromecastSession session = members.get(i);
+			final ChromecastSessionCallback answer = join.member(i);
+			final long sendAt = now + slowest - session.getRoundTrip() / 2;
+			this.handler.postAtTime(new Runnable() {
+				public void run() {
+					// Sent late - it lands late, so start that much further in
+					long late = Math.max(0, SystemClock.uptimeMillis() - sendAt);
+					command.send(session, position + late, answer);
+				}
+			}, sendAt);
+		}
+	}
+	
+	private void startWatching() {
+		if (!this.watching) {
+			this.watching = true;
+			this.generation++;
+			this.handler.postDelayed(this.driftCheck, DRIFT_CHECK_INTERVAL);
+		}
+	}
+	
+	private void stopWatching() {
+		this.handler.post(new Runnable() {
+			public void run() {
+				ChromecastGroupPlayback.this.watching = false;
+				ChromecastGroupPlayback.this.generation++;
+				ChromecastGroupPlayback.this.handler.removeCallbacks(ChromecastGroupPlayback.this.driftCheck);
+			}
+		});
+	}
+	
+	/**
+	 * Fresh statuses from every member (which also keeps the round trips up to date), then compares positions
+	 */
+	private void checkDrift() {
+		if (!this.watching) {
+			return;
+		}
+		final int generation = this.generation;
+		final List<ChromecastSession> members = this.sessions.resolve(this.target);
+		if (members.size() < 2) {
+			this.handler.postDelayed(this.driftCheck, DRIFT_CHECK_INTERVAL);
+			return;
+		}
+		
+		final int[] remaining = { members.size() };
+		final Runnable answered = new Runnable() {
+			public void run() {
+				synchronized (remaining) {
+					if (--remaining[0] > 0) {
+						return;
+					}
+				}
+				ChromecastGroupPlayback.this.handler.post(new Runnable() {
+					public void run() {
+						ChromecastGroupPlayback.this.correctDrift(members, generation);
+					}
+				});
+			}
+		};
+		for (ChromecastSession session : members) {
+			this.sample(session, 1, answered);
+		}
+	}
+	
+	/**
+	 * @param members
+	 * @param generation - when the check started; if watching stopped (and maybe started again) since, the
+	 * samples are stale and the next check is someone else's to schedule
+	 */
+	private void correctDrift(List<ChromecastSession> members, int generation) {
+		if (!this.watching || generation != this.generation) {
+			return;
+		}
+		
+		// A status describes the receiver half a round trip ago
+		ArrayList<ChromecastSession> playing = new ArrayList<ChromecastSession>();
+		ArrayList<Long> positions = new ArrayList<Long>();
+		for (ChromecastSession session : members) {
+			if (session.isPlaying()) {
+				playing.add(session);
+				positions.add(session.getApproximateStreamPosition() + session.getRoundTrip() / 2);
+			}
+		}
+		if (playing.isEmpty()) {
+			// Everyone stopped - nothing to keep in step until the next play
+			this.watching = false;
+			return;
+		}
+		
+		ArrayList<Long> sorted = new ArrayList<Long>(positions);
+		Collections.sort(sorted);
+		long median = sorted.get(sorted.size() / 2);
+		for (int i = 0; i < playing.size(); i++) {
+			long drift = positions.get(i) - median;
+			if (Math.abs(drift) > this.driftThreshold) {
+				final ChromecastSession session = playing.get(i);
+				this.logger.log(ChromecastLog.DEBUG, "Session " + session.getSessionId() + " drifted " + drift + "ms, seeking");
+				// The rest of the group moves on while the seek is on its way
+				session.mediaSeek(median + session.getRoundTrip() / 2, "PLAYBACK_START", new ChromecastSessionCallback() {
+					@Override
+					void onSuccess(Object object) {
+					}
+					
+					@Override
+					void onError(String reason) {
+						ChromecastGroupPlayback.this.logger.log(ChromecastLog.WARN, "Drift correction failed for " + session.getSessionId() + ": " + reason);
+					}
+				});
+			}
+		}
+		this.handler.postDelayed(this.driftCheck, DRIFT_CHECK_INTERVAL);
+	}
+}
@@ -0,0 +1,215 @@
+package acidhax.cordova.chromecast;
+
+import java.util.IllegalFormatException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/*
+ * In-memory ring buffer of plugin diagnostics. Nothing crosses the bridge until javascript asks for it
+ * (getLogs / streamLogs), messages below the configured level are dropped before anything is allocated
+ * for them, and format strings are only formatted when an entry is read.
+ */
+public class ChromecastLog {
+	public static final int VERBOSE = 0;
+	public static final int DEBUG = 1;
+	public static final int INFO = 2;
+	public static final int WARN = 3;
+	public static final int ERROR = 4;
+	public static final int NONE = 5;
+	
+	private static final String[] LEVEL_NAMES = { "verbose", "debug", "info", "warn", "error", "none" };
+	private static final int CAPACITY = 256;
+	
+	private AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<Entry>(CAPACITY);
+	private AtomicLong next = new AtomicLong(0);
+	private volatile int level = INFO;
+	
+	private volatile CallbackContext streamCallback = null;
+	private volatile int streamLevel = NONE;
+	
+	private static class Entry {
+		final long seq;
+		final long time;
+		final int level;
+		final String format;
+		final Object[] args;
+		
+		Entry(long seq, int level, String format, Object[] args) {
+			this.seq = seq;
+			this.time = System.currentTimeMillis();
+			this.level = level;
+			this.format = format;
+			this.args = snapshot(args);
+		}
+		
+		/**
+		 * Keeps values that can't change as they are, so %d and friends still work, and turns anything else
+		 * into its string now - the buffer shouldn't hold on to sessions and the like, or show how they look later
+		 * @param args
+		 * @return
+		 */
+		private static Object[] snapshot(Object[] args) {
+			if (args == null) {
+				return null;
+			}
+			Object[] out = new Object[args.length];
+			for (int i = 0; i < args.length; i++) {
+				Object arg = args[i];
+				if (arg == null || arg instanceof String || arg instanceof Number || arg instanceof Boolean
+						|| arg instanceof Character || arg instanceof Enum) {
+					out[i] = arg;
+				} else {
+					out[i] = String.valueOf(arg);
+				}
+			}
+			return out;
+		}
+		
+		String getMessage() {
+			if (this.args == null || this.args.length == 0) {
+				return this.format;
+			}
+			try {
+				return String.format(this.format, this.args);
+			} catch (IllegalFormatException e) {
+				return this.format;
+			}
+		}
+		
+		JSONObject toJSON() throws JSONException {
+			JSONObject out = new JSONObject();
+			out.put("seq", this.seq);
+			out.put("time", this.time);
+			out.put("level", LEVEL_NAMES[this.level]);
+			out.put("message", this.getMessage());
+			return out;
+		}
+	}
+	
+	/**
+	 * @param level
+	 * @return true if a message at this level would be kept
+	 */
+	public boolean isLoggable(int level) {
+		return level >= this.level || level >= this.streamLevel;
+	}
+	
+	public void log(int level, String message) {
+		this.log(level, message, (Object[]) null);
+	}
+	
+	/**
+	 * Records a message - args are turned into strings now, but only formatted (String.format) when the entry is read
+	 * @param level
+	 * @param format
+	 * @param args
+	 */
+	public void log(int level, String format, Object... args) {
+		if (!this.isLoggable(level)) {
+			return;
+		}
+		
+		Entry entry = new Entry(this.next.getAndIncrement(), level, format, args);
+		this.entries.set((int) (entry.seq % CAPACITY), entry);
+		
+		CallbackContext stream = this.streamCallback;
+		if (stream != null && level >= this.streamLevel) {
+			try {
+				JSONArray out = new JSONArray();
+				out.put(entry.toJSON());
+				PluginResult result = new PluginResult(PluginResult.Status.OK, out);
+				result.setKeepCallback(true);
+				stream.sendPluginResult(result);
+			} catch (JSONException e) {
+				
+			}
+		}
+	}
+	
+	/**
+	 * Sets the lowest level that gets recorded
+	 * @param level
+	 */
+	public void setLevel(int level) {
+		this.level = level;
+	}
+	
+	/**
+	 * Every entry still in the buffer that is newer than the given sequence number, oldest first
+	 * @param since - sequence number of the last entry already seen, -1 for everything
+	 * @return
+	 */
+	public JSONArray getEntries(long since) {
+		return this.getEntries(since, VERBOSE);
+	}
+	
+	/**
+	 * As getEntries(since), leaving out entries below the level
+	 * @param since
+	 * @param level
+	 * @return
+	 */
+	public JSONArray getEntries(long since, int level) {
+		JSONArray out = new JSONArray();
+		long end = this.next.get();
+		long start = Math.max(since + 1, end - CAPACITY);
+		for (long seq = Math.max(start, 0); seq < end; seq++) {
+			Entry entry = this.entries.get((int) (seq % CAPACITY));
+			// Skip slots that have been overwritten, or not written yet
+			if (entry != null && entry.seq == seq && entry.level >= level) {
+				try {
+					out.put(entry.toJSON());
+				} catch (JSONException e) {
+					
+				}
+			}
+		}
+		return out;
+	}
+	
+	/**
+	 * Pushes entries at or above the level to the callbackContext as they are logged, after sending what is
+	 * already buffered. NONE stops the stream.
+	 * @param level
+	 * @param callbackContext
+	 */
+	public void stream(int level, CallbackContext callbackContext) {
+		CallbackContext previous = this.streamCallback;
+		if (previous != null && previous != callbackContext) {
+			previous.sendPluginResult(new PluginResult(PluginResult.Status.NO_RESULT));
+		}
+		
+		if (level >= NONE) {
+			this.streamCallback = null;
+			this.streamLevel = NONE;
+			callbackContext.success(new JSONArray());
+			return;
+		}
+		
+		PluginResult result = new PluginResult(PluginResult.Status.OK, this.getEntries(-1, level));
+		result.setKeepCallback(true);
+		callbackContext.sendPluginResult(result);
+		
+		this.streamLevel = level;
+		this.streamCallback = callbackContext;
+	}
+	
+	/**
+	 * @param name - verbose | debug | info | warn | error | none
+	 * @return the matching level, or -1
+	 */
+	public static int parseLevel(String name) {
+		for (int i = 0; i < LEVEL_NAMES.length; i++) {
+			if (LEVEL_NAMES[i].equalsIgnoreCase(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
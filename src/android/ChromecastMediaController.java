@@ -10,8 +10,18 @@ import com.google.android.gms.common.api.ResultCallback;
 
 public class ChromecastMediaController {
 	private RemoteMediaPlayer remote = null;
-	public ChromecastMediaController(RemoteMediaPlayer mRemoteMediaPlayer) {
+	private ChromecastOperationTracker operations;
+	private Object owner;
+	
+	/**
+	 * @param mRemoteMediaPlayer
+	 * @param operations - puts a deadline on every call
+	 * @param owner - the session the calls are made for
+	 */
+	public ChromecastMediaController(RemoteMediaPlayer mRemoteMediaPlayer, ChromecastOperationTracker operations, Object owner) {
 		this.remote = mRemoteMediaPlayer;
+		this.operations = operations;
+		this.owner = owner;
 	}
 	
 	public MediaInfo createLoadUrlRequest(String contentId, String contentType, long duration, String streamType) {
@@ -39,17 +49,17 @@ public class ChromecastMediaController {
 	
 	public void play(GoogleApiClient apiClient, ChromecastSessionCallback callback) {
 		PendingResult<MediaChannelResult> res = this.remote.play(apiClient);
-		res.setResultCallback(this.createMediaCallback(callback));
+		this.track(ChromecastOperationTracker.MEDIA, res, callback);
 	}
 	
 	public void pause(GoogleApiClient apiClient, ChromecastSessionCallback callback) {
 		PendingResult<MediaChannelResult> res = this.remote.pause(apiClient);
-		res.setResultCallback(this.createMediaCallback(callback));
+		this.track(ChromecastOperationTracker.MEDIA, res, callback);
 	}
 	
 	public void stop(GoogleApiClient apiClient, ChromecastSessionCallback callback) {
 		PendingResult<MediaChannelResult> res = this.remote.stop(apiClient);
-		res.setResultCallback(this.createMediaCallback(callback));
+		this.track(ChromecastOperationTracker.MEDIA, res, callback);
 	}
 	
 	public void seek(long seekPosition, String resumeState, GoogleApiClient apiClient, final ChromecastSessionCallback callback) {
@@ -68,17 +78,32 @@ public class ChromecastMediaController {
 			res = this.remote.seek(apiClient, seekPosition);
 		}
 		
-		res.setResultCallback(this.createMediaCallback(callback));
+		this.track(ChromecastOperationTracker.MEDIA, res, callback);
+	}
+	
+	/**
+	 * Asks the receiver for its media status - the cheapest round trip there is. Only the plugin asks for
+	 * this, so it's tracked as internal.
+	 * @param apiClient
+	 * @param callback
+	 */
+	public void requestStatus(GoogleApiClient apiClient, final ChromecastSessionCallback callback) {
+		PendingResult<MediaChannelResult> res = this.remote.requestStatus(apiClient);
+		this.operations.trackInternal(this.owner, ChromecastOperationTracker.STATUS, res, this.createMediaCallback(callback), callback);
 	}
 	
 	public void setVolume(double volume, GoogleApiClient apiClient, final ChromecastSessionCallback callback) {
 		PendingResult<MediaChannelResult> res = this.remote.setStreamVolume(apiClient, volume);
-		res.setResultCallback(this.createMediaCallback(callback));
+		this.track(ChromecastOperationTracker.MEDIA, res, callback);
 	}
 	
 	public void setMuted(boolean muted, GoogleApiClient apiClient, final ChromecastSessionCallback callback) {
 		PendingResult<MediaChannelResult> res = this.remote.setStreamMute(apiClient, muted);
-		res.setResultCallback(this.createMediaCallback(callback));
+		this.track(ChromecastOperationTracker.MEDIA, res, callback);
+	}
+	
+	private void track(String type, PendingResult<MediaChannelResult> res, ChromecastSessionCallback callback) {
+		this.operations.track(this.owner, type, res, this.createMediaCallback(callback), callback);
 	}
 	
 	private ResultCallback<RemoteMediaPlayer.MediaChannelResult> createMediaCallback(final ChromecastSessionCallback callback) {
@@ -1,51 +1,187 @@
 package acidhax.cordova.chromecast;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v7.media.MediaRouter;
 import android.support.v7.media.MediaRouter.RouteInfo;
 
 public class ChromecastMediaRouterCallback extends MediaRouter.Callback {
-	private volatile ArrayList<RouteInfo> routes = new ArrayList<RouteInfo>();
+	private ChromecastRouteRegistry registry = new ChromecastRouteRegistry();
+	private ChromecastRouteSet routeSet = new ChromecastRouteSet();
 	
 	private Chromecast callback = null;
 	
+	private MediaRouter router;
+	private Handler handler = new Handler(Looper.getMainLooper());
+	private boolean sweepScheduled = false;
+	private Runnable sweep = new Runnable() {
+		public void run() {
+			ChromecastMediaRouterCallback.this.sweepScheduled = false;
+			ChromecastMediaRouterCallback.this.evictStaleRoutes();
+		}
+	};
+	
 	public void registerCallbacks(Chromecast instance) {
 		this.callback = instance;
 	}
 
-	public synchronized RouteInfo getRoute(String id) {
-		for (RouteInfo i : this.routes) {
-			if (i.getId().equals(id)) {
-				return i;
+	public ChromecastRoute getRoute(String id) {
+		return this.registry.get(id);
+	}
+
+	/**
+	 * @return a read-only list of the known routes
+	 */
+	public List<ChromecastRoute> getRoutes() {
+		return this.registry.getAll();
+	}
+	
+	/**
+	 * @return the Cast routes that pass the route filter
+	 */
+	public List<ChromecastRoute> getCastRoutes() {
+		ArrayList<ChromecastRoute> out = new ArrayList<ChromecastRoute>();
+		for (ChromecastRoute route : this.registry.getAll()) {
+			if (this.routeSet.contains(route.getId())) {
+				out.add(route);
 			}
 		}
-		return null;
+		return out;
 	}
-
-	public synchronized RouteInfo getRoute(int index) {
-		return routes.get(index);
+	
+	/**
+	 * Only reports routes with all of the given capabilities - the route set starts a new version
+	 * @param requiredCapabilities - CastDevice capability flags, 0 for every Cast route
+	 */
+	public void setRouteFilter(int requiredCapabilities) {
+		this.routeSet.setFilter(requiredCapabilities, this.registry.getAll());
 	}
-
-	public synchronized Collection<RouteInfo> getRoutes() {
+	
+	/**
+	 * @return the versioned set of Cast routes javascript is told about
+	 */
+	public ChromecastRouteSet getRouteSet() {
+		return this.routeSet;
+	}
+	
+	/**
+	 * Lists receivers from an earlier run as unconfirmed routes until discovery finds them or they expire
+	 * @param routes
+	 */
+	public void addUnconfirmedRoutes(List<ChromecastRoute> routes) {
+		for (ChromecastRoute route : routes) {
+			if (this.registry.get(route.getId()) == null) {
+				this.registry.put(route);
+				this.sendDiff(this.routeSet.add(route));
+			}
+		}
+		this.scheduleSweep();
+	}
+	
+	/**
+	 * Adds routes the router found before this callback was registered - call on the main thread
+	 * @param router
+	 * @return the routes the router has
+	 */
+	public List<ChromecastRoute> syncRoutes(MediaRouter router) {
+		this.router = router;
+		ArrayList<ChromecastRoute> routes = new ArrayList<ChromecastRoute>();
+		for (RouteInfo route : router.getRoutes()) {
+			routes.add(this.classify(route));
+		}
+		this.scheduleSweep();
+		for (String diff : this.routeSet.sync(routes)) {
+			this.sendDiff(diff);
+		}
 		return routes;
 	}
+	
+	/**
+	 * Looks at a route once - routes we already have are just marked as seen
+	 * @param route
+	 * @return
+	 */
+	private ChromecastRoute classify(RouteInfo route) {
+		ChromecastRoute known = this.registry.get(route.getId());
+		if (known != null && known.getRouteInfo() == route) {
+			this.registry.touch(route.getId());
+			return known;
+		}
+		ChromecastRoute classified = new ChromecastRoute(route);
+		this.registry.put(classified);
+		return classified;
+	}
+	
+	private void sendDiff(String diff) {
+		if (diff != null && this.callback != null) {
+			this.callback.onRoutesUpdated(diff);
+		}
+	}
+
+	/**
+	 * Runs on the main thread - routes the router still lists are marked as seen, the ones that went
+	 * quiet without an onRouteRemoved are dropped
+	 */
+	private void evictStaleRoutes() {
+		if (this.router != null) {
+			for (RouteInfo route : this.router.getRoutes()) {
+				this.registry.touch(route.getId());
+			}
+		}
+		for (ChromecastRoute route : this.registry.evictStale()) {
+			String diff = this.routeSet.remove(route.getId());
+			if (this.callback != null) {
+				this.callback.onRouteRemoved(this.router, route);
+			}
+			this.sendDiff(diff);
+		}
+		this.scheduleSweep();
+	}
+	
+	private void scheduleSweep() {
+		if (!this.sweepScheduled && this.registry.size() > 0) {
+			this.sweepScheduled = true;
+			this.handler.postDelayed(this.sweep, this.registry.getSweepInterval());
+		}
+	}
 
 	@Override
-	public synchronized void onRouteAdded(MediaRouter router, RouteInfo route) {
-		routes.add(route);
+	public void onRouteAdded(MediaRouter router, RouteInfo route) {
+		this.router = router;
+		ChromecastRoute classified = new ChromecastRoute(route);
+		this.registry.put(classified);
+		this.scheduleSweep();
+		String diff = this.routeSet.add(classified);
 		if (this.callback != null) {
-			this.callback.onRouteAdded(router, route);
+			this.callback.onRouteAdded(router, classified);
 		}
+		this.sendDiff(diff);
 	}
 	
 	@Override
 	public void onRouteRemoved(MediaRouter router, RouteInfo route) {
-		routes.remove(route);
+		ChromecastRoute known = this.registry.get(route.getId());
+		this.registry.remove(route.getId());
+		String diff = this.routeSet.remove(route.getId());
+		if (this.callback != null) {
+			this.callback.onRouteRemoved(router, known != null ? known : new ChromecastRoute(route));
+		}
+		this.sendDiff(diff);
+	}
+	
+	@Override
+	public void onRouteChanged(MediaRouter router, RouteInfo route) {
+		this.router = router;
+		ChromecastRoute classified = new ChromecastRoute(route);
+		this.registry.put(classified);
+		String diff = this.routeSet.add(classified);
 		if (this.callback != null) {
-			this.callback.onRouteRemoved(router, route);
+			this.callback.onRouteChanged(router, classified);
 		}
+		this.sendDiff(diff);
 	}
 	
 	@Override
@@ -0,0 +1,185 @@
+package acidhax.cordova.chromecast;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.google.android.gms.cast.MediaInfo;
+import com.google.android.gms.cast.MediaStatus;
+
+/*
+ * Writes a MediaStatus straight to JSON text without building JSONObjects first.
+ * The output matches what the old JSONObject based createMediaObject().toString() produced, byte for byte -
+ * numbers and strings go through JSONObject.numberToString / JSONObject.quote, and the enum values are
+ * constant fragments so a status tick only allocates for the numbers that changed.
+ */
+public class ChromecastMediaStatusWriter {
+	public static final String[] FIELDS = {
+		"media", "mediaSessionId", "sessionId", "currentTime", "playbackRate", "customData", "playerState", "idleReason", "volume"
+	};
+	private static final String[] FIELD_PREFIXES = new String[FIELDS.length];
+	static {
+		for (int i = 0; i < FIELDS.length; i++) {
+			FIELD_PREFIXES[i] = JSONObject.quote(FIELDS[i]) + ":";
+		}
+	}
+	
+	private static final int MEDIA = 0;
+	private static final int MEDIA_SESSION_ID = 1;
+	private static final int SESSION_ID = 2;
+	private static final int CURRENT_TIME = 3;
+	private static final int PLAYBACK_RATE = 4;
+	private static final int CUSTOM_DATA = 5;
+	private static final int PLAYER_STATE = 6;
+	private static final int IDLE_REASON = 7;
+	private static final int VOLUME = 8;
+	
+	private static final String ONE = "1";
+	private static final String EMPTY_OBJECT = "{}";
+	
+	private static final String BUFFERING = "BUFFERING";
+	private static final String IDLE = "IDLE";
+	private static final String PAUSED = "PAUSED";
+	private static final String PLAYING = "PLAYING";
+	private static final String UNKNOWN = "UNKNOWN";
+	
+	private static final String JSON_BUFFERING = JSONObject.quote(BUFFERING);
+	private static final String JSON_IDLE = JSONObject.quote(IDLE);
+	private static final String JSON_PAUSED = JSONObject.quote(PAUSED);
+	private static final String JSON_PLAYING = JSONObject.quote(PLAYING);
+	private static final String JSON_UNKNOWN = JSONObject.quote(UNKNOWN);
+	
+	private static final String JSON_CANCELED = JSONObject.quote("canceled");
+	private static final String JSON_ERROR = JSONObject.quote("error");
+	private static final String JSON_FINISHED = JSONObject.quote("finished");
+	private static final String JSON_INTERRUPTED = JSONObject.quote("iterrupted");
+	private static final String JSON_NONE = JSONObject.quote("none");
+	
+	private static final String STREAM_TYPE_BUFFERED = ",\"streamType\":\"buffered\"}";
+	private static final String STREAM_TYPE_LIVE = ",\"streamType\":\"live\"}";
+	private static final String STREAM_TYPE_OTHER = ",\"streamType\":\"other\"}";
+	
+	private StringBuilder buffer = new StringBuilder(128);
+	private String lastSessionId;
+	private String lastSessionIdJSON;
+	
+	/**
+	 * Writes the status of the current media
+	 * @param mediaStatus - may be null when nothing is loaded
+	 * @param sessionId
+	 * @return
+	 */
+	public synchronized ChromecastMediaUpdate write(MediaStatus mediaStatus, String sessionId) {
+		String[] values = new String[FIELDS.length];
+		if (mediaStatus == null) {
+			return new ChromecastMediaUpdate(sessionId, null, values);
+		}
+		
+		String playerState = null;
+		try {
+			values[MEDIA] = this.writeMediaInfo(mediaStatus.getMediaInfo());
+			values[MEDIA_SESSION_ID] = ONE;
+			values[SESSION_ID] = this.sessionIdJSON(sessionId);
+			values[CURRENT_TIME] = JSONObject.numberToString(mediaStatus.getStreamPosition() / 1000.0);
+			values[PLAYBACK_RATE] = JSONObject.numberToString(mediaStatus.getPlaybackRate());
+			
+			JSONObject customData = mediaStatus.getCustomData();
+			values[CUSTOM_DATA] = customData != null ? customData.toString() : null;
+			
+			switch(mediaStatus.getPlayerState()) {
+				case MediaStatus.PLAYER_STATE_BUFFERING:
+					playerState = BUFFERING; values[PLAYER_STATE] = JSON_BUFFERING; break;
+				case MediaStatus.PLAYER_STATE_IDLE:
+					playerState = IDLE; values[PLAYER_STATE] = JSON_IDLE; break;
+				case MediaStatus.PLAYER_STATE_PAUSED:
+					playerState = PAUSED; values[PLAYER_STATE] = JSON_PAUSED; break;
+				case MediaStatus.PLAYER_STATE_PLAYING:
+					playerState = PLAYING; values[PLAYER_STATE] = JSON_PLAYING; break;
+				case MediaStatus.PLAYER_STATE_UNKNOWN:
+					playerState = UNKNOWN; values[PLAYER_STATE] = JSON_UNKNOWN; break;
+			}
+			
+			switch(mediaStatus.getIdleReason()) {
+				case MediaStatus.IDLE_REASON_CANCELED:
+					values[IDLE_REASON] = JSON_CANCELED; break;
+				case MediaStatus.IDLE_REASON_ERROR:
+					values[IDLE_REASON] = JSON_ERROR; break;
+				case MediaStatus.IDLE_REASON_FINISHED:
+					values[IDLE_REASON] = JSON_FINISHED; break;
+				case MediaStatus.IDLE_REASON_INTERRUPTED:
+					values[IDLE_REASON] = JSON_INTERRUPTED; break;
+				case MediaStatus.IDLE_REASON_NONE:
+					values[IDLE_REASON] = JSON_NONE; break;
+			}
+			
+			this.buffer.setLength(0);
+			this.buffer.append("{\"level\":").append(JSONObject.numberToString(mediaStatus.getStreamVolume()))
+				.append(",\"muted\":").append(mediaStatus.isMute()).append('}');
+			values[VOLUME] = this.buffer.toString();
+		} catch (JSONException e) {
+			
+		}
+		
+		return new ChromecastMediaUpdate(sessionId, playerState, values);
+	}
+	
+	/**
+	 * Joins serialized field values into a JSON object, leaving out the null ones
+	 * @param fields
+	 * @param values
+	 * @param out - appended to
+	 * @return
+	 */
+	public static String toJSON(String[] fields, String[] values, StringBuilder out) {
+		int start = out.length();
+		out.append('{');
+		boolean first = true;
+		for (int i = 0; i < fields.length; i++) {
+			if (values[i] == null) {
+				continue;
+			}
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			if (fields == FIELDS) {
+				out.append(FIELD_PREFIXES[i]);
+			} else {
+				out.append(JSONObject.quote(fields[i])).append(':');
+			}
+			out.append(values[i]);
+		}
+		out.append('}');
+		return out.substring(start);
+	}
+	
+	private String writeMediaInfo(MediaInfo mediaInfo) throws JSONException {
+		if (mediaInfo == null) {
+			return EMPTY_OBJECT;
+		}
+		
+		this.buffer.setLength(0);
+		this.buffer.append("{\"duration\":").append(JSONObject.numberToString(mediaInfo.getStreamDuration() / 1000.0));
+		switch(mediaInfo.getStreamType()) {
+			case MediaInfo.STREAM_TYPE_BUFFERED:
+				this.buffer.append(STREAM_TYPE_BUFFERED); break;
+			case MediaInfo.STREAM_TYPE_LIVE:
+				this.buffer.append(STREAM_TYPE_LIVE); break;
+			case MediaInfo.STREAM_TYPE_NONE:
+				this.buffer.append(STREAM_TYPE_OTHER); break;
+			default:
+				this.buffer.append('}');
+		}
+		return this.buffer.toString();
+	}
+	
+	private String sessionIdJSON(String sessionId) {
+		if (sessionId == null) {
+			return null;
+		}
+		if (!sessionId.equals(this.lastSessionId)) {
+			this.lastSessionId = sessionId;
+			this.lastSessionIdJSON = JSONObject.quote(sessionId);
+		}
+		return this.lastSessionIdJSON;
+	}
+}
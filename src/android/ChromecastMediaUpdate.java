@@ -0,0 +1,55 @@
+package acidhax.cordova.chromecast;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/*
+ * One media status as written by ChromecastMediaStatusWriter - the already serialized value of each
+ * top level field (null when the field is left out), in the order of ChromecastMediaStatusWriter.FIELDS.
+ */
+public class ChromecastMediaUpdate {
+	private String sessionId;
+	private String playerState;
+	private String[] values;
+	
+	public ChromecastMediaUpdate(String sessionId, String playerState, String[] values) {
+		this.sessionId = sessionId;
+		this.playerState = playerState;
+		this.values = values;
+	}
+	
+	public String getSessionId() {
+		return this.sessionId;
+	}
+	
+	/**
+	 * @return BUFFERING | IDLE | PAUSED | PLAYING | UNKNOWN, or null if there is no media status
+	 */
+	public String getPlayerState() {
+		return this.playerState;
+	}
+	
+	public String[] getValues() {
+		return this.values;
+	}
+	
+	/**
+	 * The whole media object, exactly as JSONObject.toString() would write it
+	 * @return
+	 */
+	public String toJSON() {
+		return ChromecastMediaStatusWriter.toJSON(ChromecastMediaStatusWriter.FIELDS, this.values, new StringBuilder(256));
+	}
+	
+	/**
+	 * The whole media object as a JSONObject, for the few places that hand it to a CallbackContext
+	 * @return
+	 */
+	public JSONObject toJSONObject() {
+		try {
+			return new JSONObject(this.toJSON());
+		} catch (JSONException e) {
+			return new JSONObject();
+		}
+	}
+}
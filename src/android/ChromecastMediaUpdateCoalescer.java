@@ -0,0 +1,113 @@
+package acidhax.cordova.chromecast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/*
+ * Sits between the sessions and the plugin and thins out bursts of media status updates.
+ * Within each interval only the newest status per session is passed on, but a change of
+ * playerState (PLAYING -> IDLE etc.) is always delivered straight away, after anything still pending.
+ */
+public class ChromecastMediaUpdateCoalescer implements ChromecastOnMediaUpdatedListener {
+	public static final long DEFAULT_INTERVAL = 100;
+	
+	private ChromecastOnMediaUpdatedListener listener;
+	private Handler handler = new Handler(Looper.getMainLooper());
+	private volatile long interval = DEFAULT_INTERVAL;
+	
+	private HashMap<String, ChromecastMediaUpdate> pending = new HashMap<String, ChromecastMediaUpdate>();
+	private HashMap<String, String> lastPlayerState = new HashMap<String, String>();
+	
+	public ChromecastMediaUpdateCoalescer(ChromecastOnMediaUpdatedListener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Sets how long updates are held back for, 0 passes every update straight through
+	 * @param interval - milliseconds
+	 */
+	public void setInterval(long interval) {
+		this.interval = Math.max(0, interval);
+		if (this.interval == 0) {
+			this.flushAll();
+		}
+	}
+	
+	public long getInterval() {
+		return this.interval;
+	}
+
+	@Override
+	public void onMediaLoaded(ChromecastMediaUpdate media) {
+		this.flush(media.getSessionId());
+		this.listener.onMediaLoaded(media);
+	}
+
+	@Override
+	public void onMediaUpdated(ChromecastMediaUpdate media) {
+		final String sessionId = media.getSessionId();
+		String playerState = media.getPlayerState();
+		ArrayList<ChromecastMediaUpdate> deliverNow = new ArrayList<ChromecastMediaUpdate>();
+		
+		synchronized (this) {
+			String lastState = this.lastPlayerState.get(sessionId);
+			boolean seen = this.lastPlayerState.containsKey(sessionId);
+			this.lastPlayerState.put(sessionId, playerState);
+			
+			if (this.interval == 0 || !seen || (playerState != null && !playerState.equals(lastState))) {
+				ChromecastMediaUpdate previous = this.pending.remove(sessionId);
+				if (previous != null) {
+					deliverNow.add(previous);
+				}
+				deliverNow.add(media);
+			} else if (this.pending.put(sessionId, media) == null) {
+				this.handler.postDelayed(new Runnable() {
+					public void run() {
+						ChromecastMediaUpdateCoalescer.this.flush(sessionId);
+					}
+				}, this.interval);
+			}
+		}
+		
+		for (ChromecastMediaUpdate o : deliverNow) {
+			this.listener.onMediaUpdated(o);
+		}
+	}
+	
+	/**
+	 * Forgets everything held for a session that has ended
+	 * @param sessionId
+	 */
+	public synchronized void clear(String sessionId) {
+		this.pending.remove(sessionId);
+		this.lastPlayerState.remove(sessionId);
+	}
+	
+	/**
+	 * Delivers the update held for a session, if there is one
+	 * @param sessionId
+	 */
+	private void flush(String sessionId) {
+		ChromecastMediaUpdate media;
+		synchronized (this) {
+			media = this.pending.remove(sessionId);
+		}
+		if (media != null) {
+			this.listener.onMediaUpdated(media);
+		}
+	}
+	
+	private void flushAll() {
+		ArrayList<ChromecastMediaUpdate> all;
+		synchronized (this) {
+			all = new ArrayList<ChromecastMediaUpdate>(this.pending.values());
+			this.pending.clear();
+		}
+		for (ChromecastMediaUpdate o : all) {
+			this.listener.onMediaUpdated(o);
+		}
+	}
+}
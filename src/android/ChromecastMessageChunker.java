@@ -0,0 +1,235 @@
+package acidhax.cordova.chromecast;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/*
+ * Splits custom messages that are too big for the Cast channel into numbered frames, and puts incoming frames
+ * back together. A frame looks like
+ *   {"__chunk":{"id":"<message id>","seq":<0 based>,"total":<frames>},"data":"<part of the message>"}
+ * Partly received messages are dropped once they go quiet for REASSEMBLY_TIMEOUT, or when holding them would
+ * go over MAX_BUFFERED characters. A frame claiming more than MAX_FRAMES parts is ignored, since parts shorter
+ * than MIN_PART_LENGTH are no way to send a message that big.
+ */
+public class ChromecastMessageChunker {
+	public static final int MAX_MESSAGE_BYTES = 64 * 1024;
+	
+	private static final String CHUNK_KEY = "__chunk";
+	private static final String CHUNK_PREFIX = "{\"" + CHUNK_KEY + "\":";
+	private static final int FRAME_OVERHEAD = 128;
+	private static final long REASSEMBLY_TIMEOUT = 30000;
+	private static final int MAX_BUFFERED = 8 * 1024 * 1024;
+	private static final int MIN_PART_LENGTH = 1024;
+	private static final int MAX_FRAMES = MAX_BUFFERED / MIN_PART_LENGTH;
+	
+	private AtomicInteger nextId = new AtomicInteger(1);
+	private LinkedHashMap<String, Partial> partials = new LinkedHashMap<String, Partial>();
+	private int buffered = 0;
+	private Handler handler = new Handler(Looper.getMainLooper());
+	private boolean evictScheduled = false;
+	
+	private Runnable evict = new Runnable() {
+		public void run() {
+			synchronized (ChromecastMessageChunker.this) {
+				ChromecastMessageChunker.this.evictScheduled = false;
+				ChromecastMessageChunker.this.evictStale(SystemClock.elapsedRealtime());
+				ChromecastMessageChunker.this.scheduleEviction();
+			}
+		}
+	};
+	
+	private static class Partial {
+		final String[] parts;
+		int received = 0;
+		int size = 0;
+		long lastActivity;
+		
+		Partial(int total) {
+			this.parts = new String[total];
+		}
+	}
+	
+	/**
+	 * @param message
+	 * @return true if the message has to be split before it can be sent
+	 */
+	public boolean needsSplit(String message) {
+		// Every char is at most 3 UTF-8 bytes, only count when it might matter
+		return message.length() * 3 > MAX_MESSAGE_BYTES && utf8Length(message) > MAX_MESSAGE_BYTES;
+	}
+	
+	/**
+	 * Splits a message into frames that each fit in the channel
+	 * @param message
+	 * @return
+	 */
+	public List<String> split(String message) {
+		String id = Integer.toString(this.nextId.getAndIncrement());
+		int partLength = (MAX_MESSAGE_BYTES - FRAME_OVERHEAD) / 3;
+		
+		while (true) {
+			ArrayList<String> parts = new ArrayList<String>();
+			int start = 0;
+			while (start < message.length()) {
+				int end = Math.min(message.length(), start + partLength);
+				// Don't cut a surrogate pair in half
+				if (end < message.length() && Character.isHighSurrogate(message.charAt(end - 1))) {
+					end--;
+				}
+				parts.add(JSONObject.quote(message.substring(start, end)));
+				start = end;
+			}
+			
+			ArrayList<String> frames = new ArrayList<String>(parts.size());
+			boolean fits = true;
+			for (int i = 0; i < parts.size() && fits; i++) {
+				String frame = CHUNK_PREFIX + "{\"id\":\"" + id + "\",\"seq\":" + i + ",\"total\":" + parts.size() + "},\"data\":" + parts.get(i) + "}";
+				fits = utf8Length(frame) <= MAX_MESSAGE_BYTES;
+				frames.add(frame);
+			}
+			// Escaping can blow a part up (quotes, control characters) - try again with smaller parts
+			if (fits) {
+				return frames;
+			}
+			partLength = partLength / 2;
+		}
+	}
+	
+	/**
+	 * Takes an incoming message
+	 * @param namespace
+	 * @param message
+	 * @return the message to deliver - the message itself if it wasn't a frame, the whole message once its
+	 * last frame has arrived, or null while frames are still missing
+	 */
+	public synchronized String receive(String namespace, String message) {
+		if (!message.startsWith(CHUNK_PREFIX)) {
+			return message;
+		}
+		
+		long now = SystemClock.elapsedRealtime();
+		this.evictStale(now);
+		
+		String id;
+		int seq;
+		int total;
+		String data;
+		try {
+			JSONObject frame = new JSONObject(message);
+			JSONObject chunk = frame.getJSONObject(CHUNK_KEY);
+			id = namespace + "/" + chunk.getString("id");
+			seq = chunk.getInt("seq");
+			total = chunk.getInt("total");
+			data = frame.getString("data");
+		} catch (JSONException e) {
+			return message;
+		}
+		if (total < 1 || total > MAX_FRAMES || seq < 0 || seq >= total) {
+			return null;
+		}
+		
+		Partial partial = this.partials.get(id);
+		if (partial == null) {
+			partial = new Partial(total);
+			this.partials.put(id, partial);
+			this.scheduleEviction();
+		}
+		if (partial.parts.length != total || partial.parts[seq] != null) {
+			return null;
+		}
+		
+		partial.parts[seq] = data;
+		partial.received++;
+		partial.size += data.length();
+		partial.lastActivity = now;
+		this.buffered += data.length();
+		
+		if (partial.received == total) {
+			this.remove(id);
+			StringBuilder out = new StringBuilder(partial.size);
+			for (String part : partial.parts) {
+				out.append(part);
+			}
+			return out.toString();
+		}
+		
+		// Over budget - drop the oldest partial messages first
+		Iterator<String> it = this.partials.keySet().iterator();
+		while (this.buffered > MAX_BUFFERED && it.hasNext()) {
+			String oldest = it.next();
+			this.buffered -= this.partials.get(oldest).size;
+			it.remove();
+		}
+		return null;
+	}
+	
+	/**
+	 * Drops everything partly received
+	 */
+	public synchronized void clear() {
+		this.partials.clear();
+		this.buffered = 0;
+		this.handler.removeCallbacks(this.evict);
+		this.evictScheduled = false;
+	}
+	
+	/**
+	 * Makes sure partial messages that go quiet are dropped even if no more frames arrive
+	 */
+	private void scheduleEviction() {
+		if (!this.evictScheduled && !this.partials.isEmpty()) {
+			this.evictScheduled = true;
+			this.handler.postDelayed(this.evict, REASSEMBLY_TIMEOUT);
+		}
+	}
+	
+	private void evictStale(long now) {
+		Iterator<Partial> it = this.partials.values().iterator();
+		while (it.hasNext()) {
+			Partial partial = it.next();
+			if (now - partial.lastActivity >= REASSEMBLY_TIMEOUT) {
+				this.buffered -= partial.size;
+				it.remove();
+			}
+		}
+	}
+	
+	private void remove(String id) {
+		Partial partial = this.partials.remove(id);
+		if (partial != null) {
+			this.buffered -= partial.size;
+		}
+	}
+	
+	/**
+	 * @param s
+	 * @return how many bytes the string takes as UTF-8, which is what goes over the wire
+	 */
+	static int utf8Length(String s) {
+		int length = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c)) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+}
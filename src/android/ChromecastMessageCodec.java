@@ -0,0 +1,217 @@
+package acidhax.cordova.chromecast;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.util.Base64;
+
+/*
+ * Opt-in compression for custom namespace messages.
+ *
+ * When a namespace has encoding turned on, both ends announce it with
+ *   {"type":"__encoding","supported":["deflate"]}
+ * and once the receiver has answered, messages above MIN_SIZE go out deflated and base64'd as
+ *   {"__deflate":"<base64>"}
+ * (only when that is actually smaller). Receivers that never announce keep getting plain text.
+ * Every incoming message is put back together from its frames (see ChromecastMessageChunker) and decoded on a
+ * background thread, in order, so none of that parsing happens on the UI thread.
+ */
+public class ChromecastMessageCodec {
+	public static final String ENCODING_DEFLATE = "deflate";
+	public static final String ENCODING_NONE = "none";
+	
+	private static final String ANNOUNCE_TYPE = "__encoding";
+	private static final String DEFLATE_KEY = "__deflate";
+	private static final String DEFLATE_PREFIX = "{\"" + DEFLATE_KEY + "\":\"";
+	private static final int MIN_SIZE = 512;
+	private static final int BUFFER_SIZE = 8192;
+	
+	/*
+	 * Gets handed each incoming message once it has been decoded
+	 */
+	public interface Receiver {
+		void onDecodedMessage(String namespace, String message);
+	}
+	
+	private Receiver receiver;
+	private ChromecastMessageChunker chunker;
+	private ConcurrentHashMap<String, Boolean> enabled = new ConcurrentHashMap<String, Boolean>();
+	private ConcurrentHashMap<String, Boolean> peerSupports = new ConcurrentHashMap<String, Boolean>();
+	private ExecutorService decoder = null;
+	private boolean shutdown = false;
+	
+	// Pooled - reused for every message, guarded by this
+	private Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private Inflater inflater = new Inflater();
+	private byte[] chunk = new byte[BUFFER_SIZE];
+	private ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+	
+	public ChromecastMessageCodec(ChromecastMessageChunker chunker, Receiver receiver) {
+		this.chunker = chunker;
+		this.receiver = receiver;
+	}
+	
+	/**
+	 * Turns encoding on / off for a namespace
+	 * @param namespace
+	 * @param encoding - deflate | none
+	 * @return the announcement to send to the receiver, or null
+	 */
+	public String setEncoding(String namespace, String encoding) {
+		if (ENCODING_DEFLATE.equals(encoding)) {
+			this.enabled.put(namespace, true);
+			return "{\"type\":\"" + ANNOUNCE_TYPE + "\",\"supported\":[\"" + ENCODING_DEFLATE + "\"]}";
+		}
+		this.enabled.remove(namespace);
+		this.peerSupports.remove(namespace);
+		return null;
+	}
+	
+	public boolean isEnabled(String namespace) {
+		return this.enabled.containsKey(namespace);
+	}
+	
+	/**
+	 * Encodes an outgoing message if the namespace and the receiver both do encoding
+	 * @param namespace
+	 * @param message
+	 * @return
+	 */
+	public String encode(String namespace, String message) {
+		if (message.length() < MIN_SIZE || !this.enabled.containsKey(namespace) || !this.peerSupports.containsKey(namespace)) {
+			return message;
+		}
+		try {
+			byte[] deflated = this.deflate(message.getBytes("UTF-8"));
+			if (deflated == null) {
+				return message;
+			}
+			String encoded = DEFLATE_PREFIX + Base64.encodeToString(deflated, Base64.NO_WRAP) + "\"}";
+			return encoded.length() < message.length() ? encoded : message;
+		} catch (UnsupportedEncodingException e) {
+			return message;
+		}
+	}
+	
+	/**
+	 * Takes an incoming message - it reaches the Receiver on the decoding thread once it is whole, unless it was
+	 * an announcement. Ignored after shutdown.
+	 * @param namespace
+	 * @param message
+	 */
+	public synchronized void receive(final String namespace, final String message) {
+		if (this.shutdown) {
+			return;
+		}
+		if (this.decoder == null) {
+			this.decoder = Executors.newSingleThreadExecutor();
+		}
+		this.decoder.execute(new Runnable() {
+			public void run() {
+				String whole = ChromecastMessageCodec.this.chunker.receive(namespace, message);
+				if (whole == null) {
+					return;
+				}
+				String decoded = ChromecastMessageCodec.this.enabled.containsKey(namespace)
+						? ChromecastMessageCodec.this.decode(namespace, whole) : whole;
+				if (decoded != null) {
+					ChromecastMessageCodec.this.receiver.onDecodedMessage(namespace, decoded);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Stops the decoding thread and frees the compressor - the codec is done for good after this
+	 */
+	public synchronized void shutdown() {
+		if (this.shutdown) {
+			return;
+		}
+		this.shutdown = true;
+		if (this.decoder != null) {
+			this.decoder.shutdown();
+			this.decoder = null;
+		}
+		this.deflater.end();
+		this.inflater.end();
+	}
+	
+	/**
+	 * @return the plain message, or null if it was an announcement meant for us
+	 */
+	private String decode(String namespace, String message) {
+		if (message.startsWith(DEFLATE_PREFIX)) {
+			this.peerSupports.put(namespace, true);
+			try {
+				String data = new JSONObject(message).getString(DEFLATE_KEY);
+				return new String(this.inflate(Base64.decode(data, Base64.NO_WRAP)), "UTF-8");
+			} catch (Exception e) {
+				return message;
+			}
+		}
+		
+		if (message.indexOf(ANNOUNCE_TYPE) > -1) {
+			try {
+				JSONObject obj = new JSONObject(message);
+				if (ANNOUNCE_TYPE.equals(obj.optString("type"))) {
+					JSONArray supported = obj.optJSONArray("supported");
+					for (int i = 0; supported != null && i < supported.length(); i++) {
+						if (ENCODING_DEFLATE.equals(supported.optString(i))) {
+							this.peerSupports.put(namespace, true);
+						}
+					}
+					return null;
+				}
+			} catch (JSONException e) {
+				
+			}
+		}
+		return message;
+	}
+	
+	/**
+	 * @return null after shutdown
+	 */
+	private synchronized byte[] deflate(byte[] input) {
+		if (this.shutdown) {
+			return null;
+		}
+		this.deflater.reset();
+		this.deflater.setInput(input);
+		this.deflater.finish();
+		this.bytes.reset();
+		while (!this.deflater.finished()) {
+			int n = this.deflater.deflate(this.chunk);
+			this.bytes.write(this.chunk, 0, n);
+		}
+		return this.bytes.toByteArray();
+	}
+	
+	private synchronized byte[] inflate(byte[] input) throws DataFormatException {
+		if (this.shutdown) {
+			throw new DataFormatException("Codec shut down");
+		}
+		this.inflater.reset();
+		this.inflater.setInput(input);
+		this.bytes.reset();
+		while (!this.inflater.finished()) {
+			int n = this.inflater.inflate(this.chunk);
+			if (n == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary())) {
+				throw new DataFormatException("Truncated message");
+			}
+			this.bytes.write(this.chunk, 0, n);
+		}
+		return this.bytes.toByteArray();
+	}
+}
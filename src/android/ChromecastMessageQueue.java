@@ -0,0 +1,241 @@
+package acidhax.cordova.chromecast;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.SystemClock;
+
+/*
+ * Outbound custom messages, queued per namespace. Messages on a namespace are handed to the Cast channel
+ * in the order they were sent, with at most `window` of them waiting on a result at a time. Once the queue
+ * behind the window is full, new messages are turned away with "queue_full" so javascript has to slow down.
+ * Only one thread at a time sends for a namespace, so messages go out in order whichever thread queued them.
+ */
+public class ChromecastMessageQueue {
+	public static final int DEFAULT_WINDOW = 4;
+	public static final int DEFAULT_MAX_QUEUED = 64;
+	
+	/*
+	 * Hands a message to the Cast channel - the callback answers once the channel has taken it or failed
+	 */
+	public interface Sender {
+		void send(String namespace, String message, ChromecastSessionCallback callback);
+	}
+	
+	private Sender sender;
+	private HashMap<String, Channel> channels = new HashMap<String, Channel>();
+	private int defaultWindow = DEFAULT_WINDOW;
+	private int maxQueued = DEFAULT_MAX_QUEUED;
+	
+	private static class Outbound {
+		final String message;
+		final ChromecastSessionCallback callback;
+		
+		Outbound(String message, ChromecastSessionCallback callback) {
+			this.message = message;
+			this.callback = callback;
+		}
+	}
+	
+	private static class Channel {
+		final ArrayDeque<Outbound> queue = new ArrayDeque<Outbound>();
+		int window;
+		int inFlight = 0;
+		boolean pumping = false;
+		long sent = 0;
+		long failed = 0;
+		long rejected = 0;
+		long bytesSent = 0;
+		long firstSentAt = 0;
+		
+		Channel(int window) {
+			this.window = window;
+		}
+	}
+	
+	public ChromecastMessageQueue(Sender sender) {
+		this.sender = sender;
+	}
+	
+	/**
+	 * Queues a message for the namespace, sending it straight away if the window allows
+	 * @param namespace
+	 * @param message
+	 * @param callback - called once the channel has taken the message, or with "queue_full"
+	 */
+	public void send(String namespace, String message, ChromecastSessionCallback callback) {
+		this.send(namespace, Collections.singletonList(message), callback);
+	}
+	
+	/**
+	 * Queues messages that only make sense together (the frames of a split message) - either all of them,
+	 * or none if the queue hasn't room for them all
+	 * @param namespace
+	 * @param messages
+	 * @param callback - called once for every message the channel has taken, or just once with "queue_full"
+	 */
+	public void send(String namespace, List<String> messages, ChromecastSessionCallback callback) {
+		Channel channel;
+		synchronized (this) {
+			channel = this.channels.get(namespace);
+			if (channel == null) {
+				channel = new Channel(this.defaultWindow);
+				this.channels.put(namespace, channel);
+			}
+			if (channel.queue.size() + messages.size() > this.maxQueued) {
+				channel.rejected += messages.size();
+				channel = null;
+			} else {
+				for (String message : messages) {
+					channel.queue.add(new Outbound(message, callback));
+				}
+			}
+		}
+		
+		if (channel == null) {
+			callback.onError("queue_full");
+		} else {
+			this.pump(namespace, channel);
+		}
+	}
+	
+	/**
+	 * Sets how many messages may wait on a result at once
+	 * @param namespace - null for the default of namespaces that haven't sent anything yet
+	 * @param window
+	 */
+	public void setWindow(String namespace, int window) {
+		window = Math.max(1, window);
+		Channel channel;
+		synchronized (this) {
+			if (namespace == null) {
+				this.defaultWindow = window;
+				return;
+			}
+			channel = this.channels.get(namespace);
+			if (channel == null) {
+				channel = new Channel(window);
+				this.channels.put(namespace, channel);
+			}
+			channel.window = window;
+		}
+		this.pump(namespace, channel);
+	}
+	
+	/**
+	 * Fails everything still queued, e.g. when the session goes away
+	 * @param reason
+	 */
+	public void clear(String reason) {
+		ArrayDeque<Outbound> dropped = new ArrayDeque<Outbound>();
+		synchronized (this) {
+			for (Channel channel : this.channels.values()) {
+				channel.failed += channel.queue.size();
+				dropped.addAll(channel.queue);
+				channel.queue.clear();
+			}
+		}
+		for (Outbound o : dropped) {
+			o.callback.onError(reason);
+		}
+	}
+	
+	/**
+	 * Queue depth and throughput counters for every namespace
+	 * @return { namespace: { queued, inFlight, window, sent, failed, rejected, bytesSent, messagesPerSecond, bytesPerSecond } }
+	 */
+	public synchronized JSONObject getStats() {
+		JSONObject out = new JSONObject();
+		long now = SystemClock.elapsedRealtime();
+		try {
+			for (Map.Entry<String, Channel> entry : this.channels.entrySet()) {
+				Channel channel = entry.getValue();
+				double seconds = channel.firstSentAt > 0 ? Math.max(1, now - channel.firstSentAt) / 1000.0 : 0;
+				
+				JSONObject stats = new JSONObject();
+				stats.put("queued", channel.queue.size());
+				stats.put("inFlight", channel.inFlight);
+				stats.put("window", channel.window);
+				stats.put("sent", channel.sent);
+				stats.put("failed", channel.failed);
+				stats.put("rejected", channel.rejected);
+				stats.put("bytesSent", channel.bytesSent);
+				stats.put("messagesPerSecond", seconds > 0 ? channel.sent / seconds : 0);
+				stats.put("bytesPerSecond", seconds > 0 ? channel.bytesSent / seconds : 0);
+				out.put(entry.getKey(), stats);
+			}
+		} catch (JSONException e) {
+			
+		}
+		return out;
+	}
+	
+	/**
+	 * Sends queued messages until the window is full. If another thread is already sending for the channel
+	 * it is left to pick up whatever was just queued.
+	 */
+	private void pump(final String namespace, final Channel channel) {
+		synchronized (this) {
+			if (channel.pumping) {
+				return;
+			}
+			channel.pumping = true;
+		}
+		boolean drained = false;
+		try {
+			while (true) {
+				final Outbound next;
+				synchronized (this) {
+					if (channel.inFlight >= channel.window || channel.queue.isEmpty()) {
+						channel.pumping = false;
+						drained = true;
+						return;
+					}
+					next = channel.queue.poll();
+					channel.inFlight++;
+					if (channel.firstSentAt == 0) {
+						channel.firstSentAt = SystemClock.elapsedRealtime();
+					}
+				}
+				this.sendNow(namespace, channel, next);
+			}
+		} finally {
+			if (!drained) {
+				synchronized (this) {
+					channel.pumping = false;
+				}
+			}
+		}
+	}
+	
+	private void sendNow(final String namespace, final Channel channel, final Outbound next) {
+		this.sender.send(namespace, next.message, new ChromecastSessionCallback() {
+			@Override
+			void onSuccess(Object object) {
+				synchronized (ChromecastMessageQueue.this) {
+					channel.inFlight--;
+					channel.sent++;
+					channel.bytesSent += ChromecastMessageChunker.utf8Length(next.message);
+				}
+				next.callback.onSuccess(object);
+				ChromecastMessageQueue.this.pump(namespace, channel);
+			}
+
+			@Override
+			void onError(String reason) {
+				synchronized (ChromecastMessageQueue.this) {
+					channel.inFlight--;
+					channel.failed++;
+				}
+				next.callback.onError(reason);
+				ChromecastMessageQueue.this.pump(namespace, channel);
+			}
+		});
+	}
+}
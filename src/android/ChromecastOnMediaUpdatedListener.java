@@ -1,8 +1,6 @@
 package acidhax.cordova.chromecast;
 
-import org.json.JSONObject;
-
 public interface ChromecastOnMediaUpdatedListener {
-	void onMediaLoaded(JSONObject media);
-	void onMediaUpdated(JSONObject media);
+	void onMediaLoaded(ChromecastMediaUpdate media);
+	void onMediaUpdated(ChromecastMediaUpdate media);
 }
\ No newline at end of file
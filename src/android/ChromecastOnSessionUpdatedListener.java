@@ -4,5 +4,7 @@ import org.json.JSONObject;
 
 public interface ChromecastOnSessionUpdatedListener {
 	void onSessionUpdated(boolean isAlive, JSONObject properties);
+	void onSessionReconnecting(String sessionId, int attempt);
+	void onSessionReconnected(JSONObject properties);
 	void onMessage(ChromecastSession session, String namespace, String message);
 }
\ No newline at end of file
@@ -0,0 +1,220 @@
+package acidhax.cordova.chromecast;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.google.android.gms.common.api.PendingResult;
+import com.google.android.gms.common.api.Result;
+import com.google.android.gms.common.api.ResultCallback;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/*
+ * Keeps track of every Cast call that is waiting on the receiver. Each one gets a deadline by its type - when
+ * it passes, the call is cancelled and fails with "timeout" instead of leaving javascript waiting forever.
+ * A result that turns up after that is dropped.
+ * Operations the plugin starts on its own, rather than for javascript, are tracked as internal so that
+ * cancelRequested leaves them alone.
+ */
+public class ChromecastOperationTracker {
+	public static final String LAUNCH = "launch";
+	public static final String JOIN = "join";
+	public static final String LOAD = "load";
+	public static final String MEDIA = "media";
+	public static final String STATUS = "status";
+	public static final String MESSAGE = "message";
+	
+	private ConcurrentHashMap<String, Long> deadlines = new ConcurrentHashMap<String, Long>();
+	private ConcurrentHashMap<Long, Operation<?>> operations = new ConcurrentHashMap<Long, Operation<?>>();
+	private AtomicLong nextId = new AtomicLong(1);
+	private Handler handler = new Handler(Looper.getMainLooper());
+	private ChromecastLog logger;
+	
+	public ChromecastOperationTracker(ChromecastLog logger) {
+		this.logger = logger;
+		this.deadlines.put(LAUNCH, 30000L);
+		this.deadlines.put(JOIN, 15000L);
+		this.deadlines.put(LOAD, 30000L);
+		this.deadlines.put(MEDIA, 10000L);
+		this.deadlines.put(STATUS, 10000L);
+		this.deadlines.put(MESSAGE, 10000L);
+	}
+	
+	private class Operation<R extends Result> implements ResultCallback<R>, Runnable {
+		final long id = ChromecastOperationTracker.this.nextId.getAndIncrement();
+		final long started = SystemClock.elapsedRealtime();
+		final Object owner;
+		final String type;
+		final PendingResult<R> pending;
+		final ResultCallback<R> callback;
+		final ChromecastSessionCallback onFailure;
+		final boolean internal;
+		
+		Operation(Object owner, String type, PendingResult<R> pending, ResultCallback<R> callback, ChromecastSessionCallback onFailure, boolean internal) {
+			this.internal = internal;
+			this.owner = owner;
+			this.type = type;
+			this.pending = pending;
+			this.callback = callback;
+			this.onFailure = onFailure;
+		}
+		
+		@Override
+		public void onResult(R result) {
+			if (this.finish()) {
+				this.callback.onResult(result);
+			}
+		}
+		
+		/**
+		 * The deadline passed
+		 */
+		@Override
+		public void run() {
+			this.fail("timeout");
+		}
+		
+		boolean fail(String reason) {
+			if (!this.finish()) {
+				return false;
+			}
+			this.pending.cancel();
+			if (this.onFailure != null) {
+				this.onFailure.onError(reason);
+			}
+			return true;
+		}
+		
+		/**
+		 * @return true the first time - whoever gets here first answers
+		 */
+		private boolean finish() {
+			ChromecastOperationTracker.this.handler.removeCallbacks(this);
+			return ChromecastOperationTracker.this.operations.remove(this.id) != null;
+		}
+	}
+	
+	/**
+	 * Waits for a pending result, for no longer than the deadline of its type
+	 * @param owner     - who the call is for, see cancelAll
+	 * @param type
+	 * @param pending
+	 * @param callback  - gets the result if it arrives in time
+	 * @param onFailure - gets "timeout" or the cancel reason otherwise, may be null
+	 * @return the operation id, for cancel
+	 */
+	public <R extends Result> long track(Object owner, String type, PendingResult<R> pending, ResultCallback<R> callback, ChromecastSessionCallback onFailure) {
+		return this.track(owner, type, pending, callback, onFailure, false);
+	}
+	
+	/**
+	 * As track, for an operation the plugin started on its own - see cancelRequested
+	 */
+	public <R extends Result> long trackInternal(Object owner, String type, PendingResult<R> pending, ResultCallback<R> callback, ChromecastSessionCallback onFailure) {
+		return this.track(owner, type, pending, callback, onFailure, true);
+	}
+	
+	private <R extends Result> long track(Object owner, String type, PendingResult<R> pending, ResultCallback<R> callback, ChromecastSessionCallback onFailure, boolean internal) {
+		Operation<R> operation = new Operation<R>(owner, type, pending, callback, onFailure, internal);
+		this.operations.put(operation.id, operation);
+		
+		Long deadline = this.deadlines.get(type);
+		if (deadline != null && deadline > 0) {
+			this.handler.postDelayed(operation, deadline);
+		}
+		pending.setResultCallback(operation);
+		return operation.id;
+	}
+	
+	/**
+	 * @param type
+	 * @param deadline - ms, 0 to wait as long as it takes
+	 */
+	public void setDeadline(String type, long deadline) {
+		this.deadlines.put(type, deadline);
+	}
+	
+	public boolean isKnownType(String type) {
+		return this.deadlines.containsKey(type);
+	}
+	
+	/**
+	 * @param id
+	 * @param reason - what the operation fails with
+	 * @return false if the operation already finished
+	 */
+	public boolean cancel(long id, String reason) {
+		Operation<?> operation = this.operations.get(id);
+		return operation != null && operation.fail(reason);
+	}
+	
+	/**
+	 * Cancels every pending operation of an owner
+	 * @param owner - null for everyone's
+	 * @param reason
+	 * @return how many were cancelled
+	 */
+	public int cancelAll(Object owner, String reason) {
+		int cancelled = 0;
+		Iterator<Operation<?>> it = this.operations.values().iterator();
+		while (it.hasNext()) {
+			Operation<?> operation = it.next();
+			if ((owner == null || operation.owner == owner) && operation.fail(reason)) {
+				cancelled++;
+			}
+		}
+		return cancelled;
+	}
+	
+	/**
+	 * Cancels every pending operation javascript asked for, leaving internal ones alone
+	 * @param reason
+	 * @return how many were cancelled
+	 */
+	public int cancelRequested(String reason) {
+		int cancelled = 0;
+		for (Operation<?> operation : this.operations.values()) {
+			if (!operation.internal && operation.fail(reason)) {
+				cancelled++;
+			}
+		}
+		return cancelled;
+	}
+	
+	/**
+	 * @return {count, oldestAge, types: {type: {count, oldestAge}}} - ages in ms
+	 */
+	public JSONObject getStats() {
+		long now = SystemClock.elapsedRealtime();
+		JSONObject out = new JSONObject();
+		JSONObject types = new JSONObject();
+		int count = 0;
+		long oldest = 0;
+		try {
+			for (Operation<?> operation : this.operations.values()) {
+				long age = now - operation.started;
+				JSONObject type = types.optJSONObject(operation.type);
+				if (type == null) {
+					type = new JSONObject();
+					types.put(operation.type, type);
+				}
+				type.put("count", type.optInt("count") + 1);
+				type.put("oldestAge", Math.max(type.optLong("oldestAge"), age));
+				count++;
+				oldest = Math.max(oldest, age);
+			}
+			out.put("count", count);
+			out.put("oldestAge", oldest);
+			out.put("types", types);
+		} catch (JSONException e) {
+			this.logger.log(ChromecastLog.WARN, "Couldn't write operation stats: %s", e);
+		}
+		return out;
+	}
+}
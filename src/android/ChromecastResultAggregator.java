@@ -0,0 +1,128 @@
+package acidhax.cordova.chromecast;
+
+import java.util.HashMap;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/*
+ * Collects the results of several actions run for one javascript call and answers it with a single array of
+ * {<label key>: label, success, result}, in entry order, once every entry has answered.
+ * Each entry gets its own CallbackContext - only its first final result counts.
+ */
+public class ChromecastResultAggregator {
+	private CordovaWebView webView;
+	private CallbackContext callbackContext;
+	private String labelKey;
+	
+	private String[] labels;
+	private JSONObject[] results;
+	private EntryCallbackContext[] entries;
+	private int completed = 0;
+	
+	/**
+	 * @param webView
+	 * @param callbackContext - answered with the array
+	 * @param labelKey        - what each result's label is called, e.g. "action"
+	 * @param size            - how many entries there are
+	 */
+	public ChromecastResultAggregator(CordovaWebView webView, CallbackContext callbackContext, String labelKey, int size) {
+		this.webView = webView;
+		this.callbackContext = callbackContext;
+		this.labelKey = labelKey;
+		this.labels = new String[size];
+		this.results = new JSONObject[size];
+		this.entries = new EntryCallbackContext[size];
+		for (int i = 0; i < size; i++) {
+			this.entries[i] = new EntryCallbackContext(i);
+		}
+	}
+	
+	/**
+	 * Called after an entry's result has been recorded
+	 * @param index
+	 * @param done - true if that was the last one and the array has been sent
+	 */
+	void onEntryFinished(int index, boolean done) {
+		
+	}
+	
+	/**
+	 * @param index
+	 * @return the CallbackContext to run the entry's action with
+	 */
+	public CallbackContext getEntry(int index) {
+		return this.entries[index];
+	}
+	
+	public void setLabel(int index, String label) {
+		this.labels[index] = label;
+	}
+	
+	/**
+	 * Fails every entry that hasn't answered yet
+	 * @param reason
+	 */
+	public void failRemaining(String reason) {
+		for (EntryCallbackContext entry : this.entries) {
+			entry.error(reason);
+		}
+	}
+	
+	private void onResult(int index, PluginResult result) {
+		HashMap<String, Object> entry = new HashMap<String, Object>();
+		entry.put(this.labelKey, this.labels[index]);
+		entry.put("success", result.getStatus() == PluginResult.Status.OK.ordinal());
+		try {
+			entry.put("result", new JSONTokener(result.getMessage()).nextValue());
+		} catch (JSONException e) {
+			// Not JSON - pass the text on as it is
+			entry.put("result", result.getMessage());
+		}
+		
+		boolean done;
+		synchronized (this) {
+			this.results[index] = new JSONObject(entry);
+			this.completed++;
+			done = this.completed == this.results.length;
+		}
+		
+		if (done) {
+			JSONArray out = new JSONArray();
+			for (JSONObject o : this.results) {
+				out.put(o);
+			}
+			this.callbackContext.success(out);
+		}
+		this.onEntryFinished(index, done);
+	}
+	
+	/*
+	 * Stands in for the javascript callback of a single entry
+	 */
+	private class EntryCallbackContext extends CallbackContext {
+		private int index;
+		private boolean answered = false;
+		
+		public EntryCallbackContext(int index) {
+			super(ChromecastResultAggregator.this.callbackContext.getCallbackId() + "/" + index, ChromecastResultAggregator.this.webView);
+			this.index = index;
+		}
+		
+		@Override
+		public void sendPluginResult(PluginResult pluginResult) {
+			synchronized (this) {
+				if (this.answered || pluginResult.getKeepCallback()) {
+					return;
+				}
+				this.answered = true;
+			}
+			ChromecastResultAggregator.this.onResult(this.index, pluginResult);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package acidhax.cordova.chromecast;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.google.android.gms.cast.CastDevice;
+
+import android.support.v7.media.MediaRouter.RouteInfo;
+
+/*
+ * A route as we classified it when it turned up - whether it's a Chromecast, the CastDevice parsed from its
+ * extras and the JSON javascript gets for it, so none of that has to be worked out again later.
+ * Receivers remembered from earlier runs start out unconfirmed - no RouteInfo until discovery finds them again.
+ */
+public class ChromecastRoute {
+	public static final String[] CAPABILITY_NAMES = { "video_out", "video_in", "audio_out", "audio_in" };
+	public static final int[] CAPABILITY_FLAGS = {
+		CastDevice.CAPABILITY_VIDEO_OUT, CastDevice.CAPABILITY_VIDEO_IN, CastDevice.CAPABILITY_AUDIO_OUT, CastDevice.CAPABILITY_AUDIO_IN
+	};
+	
+	private final RouteInfo routeInfo;
+	private final String id;
+	private final String name;
+	private final CastDevice device;
+	private final boolean cast;
+	private final int capabilities;
+	private final String json;
+	
+	public ChromecastRoute(RouteInfo routeInfo) {
+		this.routeInfo = routeInfo;
+		this.id = routeInfo.getId();
+		this.name = routeInfo.getName();
+		this.cast = !routeInfo.getName().equals("Phone") && routeInfo.getId().indexOf("Cast") > -1;
+		this.device = this.cast ? CastDevice.getFromBundle(routeInfo.getExtras()) : null;
+		
+		int capabilities = 0;
+		if (this.device != null) {
+			for (int flag : CAPABILITY_FLAGS) {
+				if (this.device.hasCapability(flag)) {
+					capabilities |= flag;
+				}
+			}
+		}
+		this.capabilities = capabilities;
+		this.json = this.cast ? this.buildJSON() : null;
+	}
+	
+	/**
+	 * An unconfirmed route for a receiver we've seen before
+	 * @param id
+	 * @param name
+	 * @param capabilities - CastDevice capability flags
+	 */
+	public ChromecastRoute(String id, String name, int capabilities) {
+		this.routeInfo = null;
+		this.id = id;
+		this.name = name;
+		this.cast = true;
+		this.device = null;
+		this.capabilities = capabilities;
+		this.json = this.buildJSON();
+	}
+	
+	/**
+	 * Turns chrome.cast.Capability names into CastDevice capability flags
+	 * @param names
+	 * @return the flags, or -1 if a name isn't known
+	 * @throws JSONException
+	 */
+	public static int parseCapabilities(JSONArray names) throws JSONException {
+		int mask = 0;
+		for (int i = 0; i < names.length(); i++) {
+			int n = 0;
+			while (n < CAPABILITY_NAMES.length && !CAPABILITY_NAMES[n].equals(names.getString(i))) {
+				n++;
+			}
+			if (n == CAPABILITY_NAMES.length) {
+				return -1;
+			}
+			mask |= CAPABILITY_FLAGS[n];
+		}
+		return mask;
+	}
+	
+	/**
+	 * @return the router's route, or null while unconfirmed
+	 */
+	public RouteInfo getRouteInfo() {
+		return this.routeInfo;
+	}
+	
+	public String getId() {
+		return this.id;
+	}
+	
+	public String getName() {
+		return this.name;
+	}
+	
+	/**
+	 * @return false for remembered receivers discovery hasn't found yet
+	 */
+	public boolean isConfirmed() {
+		return this.routeInfo != null;
+	}
+	
+	public int getCapabilities() {
+		return this.capabilities;
+	}
+	
+	/**
+	 * @return the device, or null if the route isn't a Chromecast
+	 */
+	public CastDevice getDevice() {
+		return this.device;
+	}
+	
+	/**
+	 * @return true for routes that are Chromecasts
+	 */
+	public boolean isCastRoute() {
+		return this.cast;
+	}
+	
+	/**
+	 * @param mask - CastDevice capability flags
+	 * @return true if the device has all of them
+	 */
+	public boolean hasCapabilities(int mask) {
+		return (this.capabilities & mask) == mask;
+	}
+	
+	/**
+	 * @return {name, id, friendlyName, modelName, deviceId, deviceVersion, capabilities, unconfirmed} as JSON text
+	 */
+	public String toJSON() {
+		return this.json;
+	}
+	
+	private String buildJSON() {
+		StringBuilder out = new StringBuilder(192);
+		out.append("{\"name\":").append(JSONObject.quote(this.getName()));
+		out.append(",\"id\":").append(JSONObject.quote(this.getId()));
+		if (this.device != null) {
+			out.append(",\"friendlyName\":").append(JSONObject.quote(this.device.getFriendlyName()));
+			out.append(",\"modelName\":").append(JSONObject.quote(this.device.getModelName()));
+			out.append(",\"deviceId\":").append(JSONObject.quote(this.device.getDeviceId()));
+			out.append(",\"deviceVersion\":").append(JSONObject.quote(this.device.getDeviceVersion()));
+		}
+		out.append(",\"capabilities\":[");
+		boolean first = true;
+		for (int n = 0; n < CAPABILITY_FLAGS.length; n++) {
+			if (this.hasCapabilities(CAPABILITY_FLAGS[n])) {
+				out.append(first ? "" : ",").append('"').append(CAPABILITY_NAMES[n]).append('"');
+				first = false;
+			}
+		}
+		out.append("]");
+		if (this.routeInfo == null) {
+			out.append(",\"unconfirmed\":true");
+		}
+		return out.append("}").toString();
+	}
+}
@@ -0,0 +1,112 @@
+package acidhax.cordova.chromecast;
+
+import java.util.HashMap;
+import java.util.List;
+
+import android.app.Activity;
+import android.app.AlertDialog;
+import android.content.DialogInterface;
+import android.widget.ArrayAdapter;
+
+/*
+ * The "Choose a Chromecast" dialog. Its rows sit in an ArrayAdapter and are looked up by route id, so receivers
+ * found (or lost, or renamed) while it's open show up in place instead of needing a new dialog.
+ * Everything here runs on the main thread.
+ */
+public class ChromecastRoutePicker {
+	public interface Listener {
+		void onRoutePicked(ChromecastRoute route);
+		void onCancel();
+		void onDismiss();
+	}
+	
+	/* One row - the adapter shows toString() */
+	private static class Row {
+		final ChromecastRoute route;
+		
+		Row(ChromecastRoute route) {
+			this.route = route;
+		}
+		
+		@Override
+		public String toString() {
+			return this.route.getName();
+		}
+	}
+	
+	private Activity activity;
+	private Listener listener;
+	private ArrayAdapter<Row> adapter;
+	private HashMap<String, Row> rows = new HashMap<String, Row>();
+	private AlertDialog dialog;
+	
+	public ChromecastRoutePicker(Activity activity, List<ChromecastRoute> routes, Listener listener) {
+		this.activity = activity;
+		this.listener = listener;
+		this.adapter = new ArrayAdapter<Row>(activity, android.R.layout.select_dialog_item);
+		for (ChromecastRoute route : routes) {
+			this.put(route);
+		}
+	}
+	
+	public void show() {
+		AlertDialog.Builder builder = new AlertDialog.Builder(this.activity);
+		builder.setTitle("Choose a Chromecast");
+		builder.setNegativeButton("cancel", new DialogInterface.OnClickListener() {
+			@Override
+			public void onClick(DialogInterface dialog, int which) {
+				dialog.dismiss();
+				ChromecastRoutePicker.this.listener.onCancel();
+			}
+		});
+		builder.setOnCancelListener(new DialogInterface.OnCancelListener() {
+			@Override
+			public void onCancel(DialogInterface dialog) {
+				ChromecastRoutePicker.this.listener.onCancel();
+			}
+		});
+		builder.setAdapter(this.adapter, new DialogInterface.OnClickListener() {
+			@Override
+			public void onClick(DialogInterface dialog, int which) {
+				ChromecastRoutePicker.this.listener.onRoutePicked(ChromecastRoutePicker.this.adapter.getItem(which).route);
+			}
+		});
+		this.dialog = builder.show();
+		this.dialog.setOnDismissListener(new DialogInterface.OnDismissListener() {
+			@Override
+			public void onDismiss(DialogInterface dialog) {
+				ChromecastRoutePicker.this.listener.onDismiss();
+			}
+		});
+	}
+	
+	/**
+	 * Adds a route, or updates its row if it's already listed
+	 * @param route
+	 */
+	public void put(ChromecastRoute route) {
+		Row previous = this.rows.get(route.getId());
+		Row row = new Row(route);
+		this.rows.put(route.getId(), row);
+		if (previous == null) {
+			this.adapter.add(row);
+		} else {
+			// Same place in the list, new name / details
+			int position = this.adapter.getPosition(previous);
+			this.adapter.setNotifyOnChange(false);
+			this.adapter.remove(previous);
+			this.adapter.insert(row, position);
+			this.adapter.notifyDataSetChanged();
+		}
+	}
+	
+	/**
+	 * @param id
+	 */
+	public void remove(String id) {
+		Row row = this.rows.remove(id);
+		if (row != null) {
+			this.adapter.remove(row);
+		}
+	}
+}
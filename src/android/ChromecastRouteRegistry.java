@@ -0,0 +1,130 @@
+package acidhax.cordova.chromecast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import android.os.SystemClock;
+
+/*
+ * Every route the router has told us about, by route id. Lookups go straight to the map and getAll() hands out
+ * a read-only copy that is only rebuilt when a route comes or goes, so readers never take a lock.
+ * Each route remembers when it was last seen - routes that haven't been seen for the TTL can be evicted.
+ * Unconfirmed routes (remembered from an earlier run) only get UNCONFIRMED_TTL for discovery to find them.
+ */
+public class ChromecastRouteRegistry {
+	public static final long TTL = 2 * 60 * 1000;
+	public static final long UNCONFIRMED_TTL = 30 * 1000;
+	
+	private static class Entry {
+		final ChromecastRoute route;
+		volatile long lastSeen;
+		
+		Entry(ChromecastRoute route, long lastSeen) {
+			this.route = route;
+			this.lastSeen = lastSeen;
+		}
+	}
+	
+	private ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private volatile List<ChromecastRoute> snapshot = Collections.emptyList();
+	
+	/**
+	 * Adds a route, or replaces the one with the same id
+	 * @param route
+	 * @return true if the route is new
+	 */
+	public synchronized boolean put(ChromecastRoute route) {
+		Entry previous = this.entries.put(route.getId(), new Entry(route, SystemClock.elapsedRealtime()));
+		this.rebuildSnapshot();
+		return previous == null;
+	}
+	
+	/**
+	 * @param id
+	 * @return true if the route was here
+	 */
+	public synchronized boolean remove(String id) {
+		if (this.entries.remove(id) == null) {
+			return false;
+		}
+		this.rebuildSnapshot();
+		return true;
+	}
+	
+	/**
+	 * Marks a route as still there
+	 * @param id
+	 */
+	public void touch(String id) {
+		Entry entry = this.entries.get(id);
+		if (entry != null) {
+			entry.lastSeen = SystemClock.elapsedRealtime();
+		}
+	}
+	
+	/**
+	 * @param id
+	 * @return the route, or null
+	 */
+	public ChromecastRoute get(String id) {
+		Entry entry = this.entries.get(id);
+		return entry == null ? null : entry.route;
+	}
+	
+	/**
+	 * @return a read-only list of every route
+	 */
+	public List<ChromecastRoute> getAll() {
+		return this.snapshot;
+	}
+	
+	public int size() {
+		return this.entries.size();
+	}
+	
+	/**
+	 * @return how often evictStale should run
+	 */
+	public long getSweepInterval() {
+		return Math.min(TTL / 2, UNCONFIRMED_TTL);
+	}
+	
+	/**
+	 * Removes routes that haven't been seen for longer than the TTL
+	 * @return the routes that were removed
+	 */
+	public synchronized List<ChromecastRoute> evictStale() {
+		long now = SystemClock.elapsedRealtime();
+		ArrayList<ChromecastRoute> evicted = new ArrayList<ChromecastRoute>();
+		Iterator<Map.Entry<String, Entry>> it = this.entries.entrySet().iterator();
+		while (it.hasNext()) {
+			Entry entry = it.next().getValue();
+			long ttl = entry.route.isConfirmed() ? TTL : UNCONFIRMED_TTL;
+			if (entry.lastSeen < now - ttl) {
+				evicted.add(entry.route);
+				it.remove();
+			}
+		}
+		if (!evicted.isEmpty()) {
+			this.rebuildSnapshot();
+		}
+		return evicted;
+	}
+	
+	public synchronized void clear() {
+		this.entries.clear();
+		this.rebuildSnapshot();
+	}
+	
+	private void rebuildSnapshot() {
+		ArrayList<ChromecastRoute> routes = new ArrayList<ChromecastRoute>(this.entries.size());
+		for (Entry entry : this.entries.values()) {
+			routes.add(entry.route);
+		}
+		this.snapshot = Collections.unmodifiableList(routes);
+	}
+}
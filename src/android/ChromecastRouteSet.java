@@ -0,0 +1,112 @@
+package acidhax.cordova.chromecast;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.json.JSONObject;
+
+/*
+ * The Cast routes javascript knows about, with a version that goes up by one on every change.
+ * Changes are handed out as diffs - {"version":n,"added":[route],"changed":[route],"removed":[id]} - and
+ * snapshot() gives the whole set as {"version":n,"routes":[route]}, so javascript can tell when it missed one.
+ * Only routes with every capability in the filter are in the set.
+ */
+public class ChromecastRouteSet {
+	private LinkedHashMap<String, String> routes = new LinkedHashMap<String, String>();
+	private long version = 0;
+	private int requiredCapabilities = 0;
+	
+	/**
+	 * @param route
+	 * @return the diff to send, or null if nothing changed
+	 */
+	public synchronized String add(ChromecastRoute route) {
+		if (!this.accepts(route)) {
+			// A route that changed can drop out of the set
+			return this.remove(route.getId());
+		}
+		String json = route.toJSON();
+		String previous = this.routes.put(route.getId(), json);
+		if (json.equals(previous)) {
+			return null;
+		}
+		return this.diff(previous == null ? "added" : "changed", json);
+	}
+	
+	/**
+	 * @param id
+	 * @return the diff to send, or null if the route wasn't in the set
+	 */
+	public synchronized String remove(String id) {
+		if (this.routes.remove(id) == null) {
+			return null;
+		}
+		return this.diff("removed", JSONObject.quote(id));
+	}
+	
+	/**
+	 * Picks up routes the router already knew about before we were listening
+	 * @param routes
+	 * @return the diffs to send
+	 */
+	public synchronized String[] sync(List<ChromecastRoute> routes) {
+		String[] diffs = new String[routes.size()];
+		int n = 0;
+		for (ChromecastRoute route : routes) {
+			String diff = this.add(route);
+			if (diff != null) {
+				diffs[n++] = diff;
+			}
+		}
+		String[] out = new String[n];
+		System.arraycopy(diffs, 0, out, 0, n);
+		return out;
+	}
+	
+	/**
+	 * Only lets routes with all of the given capabilities into the set - javascript needs a new snapshot after this
+	 * @param requiredCapabilities - CastDevice capability flags, 0 for every Cast route
+	 * @param all - every known route
+	 */
+	public synchronized void setFilter(int requiredCapabilities, List<ChromecastRoute> all) {
+		this.requiredCapabilities = requiredCapabilities;
+		this.routes.clear();
+		for (ChromecastRoute route : all) {
+			if (this.accepts(route)) {
+				this.routes.put(route.getId(), route.toJSON());
+			}
+		}
+		this.version++;
+	}
+	
+	public synchronized boolean contains(String id) {
+		return this.routes.containsKey(id);
+	}
+	
+	public synchronized boolean isEmpty() {
+		return this.routes.isEmpty();
+	}
+	
+	/**
+	 * @return every route and the version they're at
+	 */
+	public synchronized String snapshot() {
+		StringBuilder out = new StringBuilder(64 + this.routes.size() * 192);
+		out.append("{\"version\":").append(this.version).append(",\"routes\":[");
+		boolean first = true;
+		for (String json : this.routes.values()) {
+			out.append(first ? "" : ",").append(json);
+			first = false;
+		}
+		return out.append("]}").toString();
+	}
+	
+	private boolean accepts(ChromecastRoute route) {
+		return route.isCastRoute() && route.hasCapabilities(this.requiredCapabilities);
+	}
+	
+	private String diff(String kind, String entry) {
+		this.version++;
+		return "{\"version\":" + this.version + ",\"" + kind + "\":[" + entry + "]}";
+	}
+}
@@ -0,0 +1,132 @@
+package acidhax.cordova.chromecast;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/*
+ * Request / response messaging on top of a session's custom namespaces.
+ * Every request gets a "requestId" added to its JSON body; a message coming back on the same namespace
+ * with that requestId answers it. Any number of requests can be in flight per namespace, each one has its
+ * own timeout, and each callback is called exactly once.
+ */
+public class ChromecastRpc {
+	public static final long DEFAULT_TIMEOUT = 10000;
+	
+	private ChromecastSession session;
+	private Handler handler = new Handler(Looper.getMainLooper());
+	private AtomicInteger nextRequestId = new AtomicInteger(1);
+	private ConcurrentHashMap<Integer, Request> pending = new ConcurrentHashMap<Integer, Request>();
+	
+	private class Request implements Runnable {
+		final int requestId;
+		final String namespace;
+		final ChromecastSessionCallback callback;
+		
+		Request(int requestId, String namespace, ChromecastSessionCallback callback) {
+			this.requestId = requestId;
+			this.namespace = namespace;
+			this.callback = callback;
+		}
+		
+		/**
+		 * Timed out
+		 */
+		public void run() {
+			ChromecastRpc.this.fail(this.requestId, "timeout");
+		}
+	}
+	
+	public ChromecastRpc(ChromecastSession session) {
+		this.session = session;
+	}
+	
+	/**
+	 * Sends a request and waits for the matching response
+	 * @param namespace
+	 * @param message - a JSON object
+	 * @param timeout - milliseconds
+	 * @param callback - onSuccess(String response) or onError(reason)
+	 */
+	public void request(String namespace, String message, long timeout, final ChromecastSessionCallback callback) {
+		final int requestId = this.nextRequestId.getAndIncrement();
+		String body;
+		try {
+			JSONObject obj = new JSONObject(message);
+			obj.put("requestId", requestId);
+			body = obj.toString();
+		} catch (JSONException e) {
+			callback.onError("invalid_parameter");
+			return;
+		}
+		
+		Request request = new Request(requestId, namespace, callback);
+		this.pending.put(requestId, request);
+		this.handler.postDelayed(request, timeout > 0 ? timeout : DEFAULT_TIMEOUT);
+		
+		this.session.addMessageListener(namespace);
+		this.session.sendMessage(namespace, body, new ChromecastSessionCallback() {
+			@Override
+			void onSuccess(Object object) {
+				// Sent - now it's up to the response
+			}
+
+			@Override
+			void onError(String reason) {
+				ChromecastRpc.this.fail(requestId, reason);
+			}
+		});
+	}
+	
+	/**
+	 * Offers an incoming message to the requests in flight
+	 * @param namespace
+	 * @param message
+	 * @return true if the message was a response and has been consumed
+	 */
+	public boolean onMessageReceived(String namespace, String message) {
+		if (this.pending.isEmpty() || message.indexOf("\"requestId\"") < 0) {
+			return false;
+		}
+		
+		int requestId;
+		try {
+			requestId = new JSONObject(message).getInt("requestId");
+		} catch (JSONException e) {
+			return false;
+		}
+		
+		Request request = this.pending.get(requestId);
+		if (request == null || !request.namespace.equals(namespace) || !this.pending.remove(requestId, request)) {
+			return false;
+		}
+		this.handler.removeCallbacks(request);
+		request.callback.onSuccess(message);
+		return true;
+	}
+	
+	/**
+	 * Fails every request still in flight, e.g. when the session goes away
+	 * @param reason
+	 */
+	public void cancelAll(String reason) {
+		Iterator<Integer> it = this.pending.keySet().iterator();
+		while (it.hasNext()) {
+			this.fail(it.next(), reason);
+		}
+	}
+	
+	private void fail(int requestId, String reason) {
+		Request request = this.pending.remove(requestId);
+		if (request != null) {
+			this.handler.removeCallbacks(request);
+			request.callback.onError(reason);
+		}
+	}
+}
@@ -13,6 +13,7 @@ import com.google.android.gms.cast.ApplicationMetadata;
 import com.google.android.gms.cast.Cast;
 import com.google.android.gms.cast.Cast.ApplicationConnectionResult;
 import com.google.android.gms.cast.CastDevice;
+import com.google.android.gms.cast.CastStatusCodes;
 import com.google.android.gms.cast.MediaInfo;
 import com.google.android.gms.cast.MediaStatus;
 import com.google.android.gms.cast.RemoteMediaPlayer;
@@ -21,11 +22,13 @@ import com.google.android.gms.cast.RemoteMediaPlayer.OnMetadataUpdatedListener;
 import com.google.android.gms.cast.RemoteMediaPlayer.OnStatusUpdatedListener;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.PendingResult;
 import com.google.android.gms.common.api.ResultCallback;
 import com.google.android.gms.common.api.Status;
 import com.google.android.gms.common.images.WebImage;
 
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.support.v7.media.MediaRouter.RouteInfo;
 
 /*
@@ -46,35 +49,70 @@ public class ChromecastSession
 	private CordovaInterface cordova = null;
 	private CastDevice device = null;
 	private ChromecastMediaController chromecastMediaController;
+	private ChromecastOperationTracker operations;
+	private ChromecastLog logger;
+	private ChromecastMediaStatusWriter mediaStatusWriter = new ChromecastMediaStatusWriter();
 	private ChromecastOnMediaUpdatedListener onMediaUpdatedListener;
 	private ChromecastOnSessionUpdatedListener onSessionUpdatedListener;
 	
 	private volatile String appId;
 	private volatile String displayName;
 	private volatile List<WebImage> appImages;
+	private volatile JSONObject sessionDescriptor = null;
+	private volatile JSONObject volume = new JSONObject();
 	private volatile String sessionId = null;
 	private volatile String lastSessionId = null;
 	private boolean isConnected = false;
+	// Smoothed media channel round trip in ms, 0 until measured
+	private volatile long roundTrip = 0;
+	private volatile long roundTripMeasuredAt = 0;
 	
 	private ChromecastSessionCallback launchCallback;
 	private ChromecastSessionCallback joinSessionCallback; 
 	
 	private boolean joinInsteadOfConnecting = false;
+	// Rejoining after the connection dropped - javascript sees the session as reconnecting meanwhile
+	private volatile boolean recovering = false;
+	// A join made for recovery is still out - its result belongs to recovery, however late it comes
+	private boolean recoveryJoinPending = false;
+	private ChromecastSessionRecovery recovery = new ChromecastSessionRecovery(new ChromecastSessionRecovery.Listener() {
+		public void onRecoveryAttempt(int attempt) {
+			ChromecastSession.this.attemptRecovery(attempt);
+		}
+		
+		public void onRecoveryFailed() {
+			ChromecastSession.this.giveUpRecovery();
+		}
+	});
 	private HashSet<String> messageNamespaces = new HashSet<String>();
+	private ChromecastRpc rpc = new ChromecastRpc(this);
+	private ChromecastMessageQueue messageQueue = new ChromecastMessageQueue(new ChromecastMessageQueue.Sender() {
+		public void send(String namespace, String message, ChromecastSessionCallback callback) {
+			ChromecastSession.this.sendMessageNow(namespace, message, callback);
+		}
+	});
+	private ChromecastMessageChunker chunker = new ChromecastMessageChunker();
+	private ChromecastMessageCodec codec = new ChromecastMessageCodec(this.chunker, new ChromecastMessageCodec.Receiver() {
+		public void onDecodedMessage(String namespace, String message) {
+			ChromecastSession.this.deliverMessage(namespace, message);
+		}
+	});
 	
-	public ChromecastSession(RouteInfo routeInfo, CordovaInterface cordovaInterface, 
+	public ChromecastSession(ChromecastRoute route, CordovaInterface cordovaInterface, ChromecastOperationTracker operations, ChromecastLog logger,
 			ChromecastOnMediaUpdatedListener onMediaUpdatedListener, ChromecastOnSessionUpdatedListener onSessionUpdatedListener) {
 		this.cordova = cordovaInterface;
+		this.operations = operations;
+		this.logger = logger;
         this.onMediaUpdatedListener = onMediaUpdatedListener;
         this.onSessionUpdatedListener = onSessionUpdatedListener;
-        this.routeInfo = routeInfo;
-		this.device = CastDevice.getFromBundle(this.routeInfo.getExtras());
+        this.routeInfo = route.getRouteInfo();
+		this.device = route.getDevice() != null ? route.getDevice() : CastDevice.getFromBundle(this.routeInfo.getExtras());
 		
 		this.mRemoteMediaPlayer = new RemoteMediaPlayer();
 		this.mRemoteMediaPlayer.setOnMetadataUpdatedListener(this);
 		this.mRemoteMediaPlayer.setOnStatusUpdatedListener(this);
 		
-		this.chromecastMediaController = new ChromecastMediaController(mRemoteMediaPlayer);
+		this.chromecastMediaController = new ChromecastMediaController(mRemoteMediaPlayer, operations, this);
 	}
 
 	
@@ -85,7 +123,37 @@ public class ChromecastSession
 	public void launch(String appId, ChromecastSessionCallback launchCallback) {
 		this.appId = appId;
 		this.launchCallback = launchCallback;
-		this.connectToDevice();
+		this.startApplication();
+	}
+	
+	/**
+	 * Connects to the device without launching or joining anything yet, so a later launch or join
+	 * can skip the connection step
+	 */
+	public synchronized void warmUp() {
+		if (this.mApiClient == null) {
+			this.connectToDevice();
+		}
+	}
+	
+	/**
+	 * Drops a connection made by warmUp that was never used
+	 */
+	public synchronized void disconnect() {
+		if (this.mApiClient != null && !this.isStarted()) {
+			try {
+				this.mApiClient.disconnect();
+			} catch(Exception e) {
+				
+			}
+		}
+	}
+	
+	/**
+	 * @return true once launch or join was called - before that the connection is only warmed up
+	 */
+	private boolean isStarted() {
+		return this.launchCallback != null || this.joinSessionCallback != null;
 	}
 	
 	public boolean isConnected() { return this.isConnected; }
@@ -106,28 +174,114 @@ public class ChromecastSession
 	}
 	
 	/**
-	 * Sends a message to a specified namespace
+	 * Sends a message to a specified namespace - messages are queued per namespace and sent in order, 
+	 * messages too big for the channel are sent as several frames
 	 * @param namespace
 	 * @param message
 	 * @param callback
 	 */
 	public void sendMessage(String namespace, String message, final ChromecastSessionCallback callback) {
+		String encoded = this.codec.encode(namespace, message);
+		if (!this.chunker.needsSplit(encoded)) {
+			this.messageQueue.send(namespace, encoded, callback);
+			return;
+		}
+		
+		final List<String> frames = this.chunker.split(encoded);
+		ChromecastSessionCallback frameCallback = new ChromecastSessionCallback() {
+			private int remaining = frames.size();
+			private boolean failed = false;
+			
+			@Override
+			synchronized void onSuccess(Object object) {
+				if (!failed && --remaining == 0) {
+					callback.onSuccess();
+				}
+			}
+			
+			@Override
+			synchronized void onError(String reason) {
+				if (!failed) {
+					failed = true;
+					callback.onError(reason);
+				}
+			}
+		};
+		// All the frames or none - half a message is no use to the receiver
+		this.messageQueue.send(namespace, frames, frameCallback);
+	}
+	
+	/**
+	 * Turns compression of large messages on or off for a namespace - it only kicks in once the receiver
+	 * has announced that it supports it too
+	 * @param namespace
+	 * @param encoding - deflate | none
+	 * @param callback
+	 */
+	public void setMessageEncoding(String namespace, String encoding, ChromecastSessionCallback callback) {
+		if (!ChromecastMessageCodec.ENCODING_DEFLATE.equals(encoding) && !ChromecastMessageCodec.ENCODING_NONE.equals(encoding)) {
+			callback.onError("invalid_parameter");
+			return;
+		}
+		this.addMessageListener(namespace);
+		String announcement = this.codec.setEncoding(namespace, encoding);
+		if (announcement != null) {
+			this.messageQueue.send(namespace, announcement, callback);
+		} else {
+			callback.onSuccess();
+		}
+	}
+	
+	/**
+	 * Hands a message straight to the Cast channel - used by the message queue
+	 * @param namespace
+	 * @param message
+	 * @param callback
+	 */
+	void sendMessageNow(String namespace, String message, final ChromecastSessionCallback callback) {
 		try {
-			Cast.CastApi.sendMessage(mApiClient, namespace, message).setResultCallback(new ResultCallback<Status>() {
+			this.operations.track(this, ChromecastOperationTracker.MESSAGE, Cast.CastApi.sendMessage(mApiClient, namespace, message), new ResultCallback<Status>() {
 		        @Override
 		        public void onResult(Status result) {
-		          if (!result.isSuccess()) {
+		          if (result.isSuccess()) {
 		        	  callback.onSuccess();
 		          } else {
 		        	  callback.onError(result.toString());
 		          }
 		        }
-		      });
+		      }, callback);
 		} catch(Exception e) {
 			callback.onError(e.getMessage());
 		}
 	}
 	
+	/**
+	 * Sets how many messages on a namespace may wait on the channel at once
+	 * @param namespace - null to set the default
+	 * @param window
+	 */
+	public void setMessageWindow(String namespace, int window) {
+		this.messageQueue.setWindow(namespace, window);
+	}
+	
+	/**
+	 * @return queue depth and throughput counters per namespace
+	 */
+	public JSONObject getMessageQueueStats() {
+		return this.messageQueue.getStats();
+	}
+	
+	/**
+	 * Sends a JSON message to a specified namespace and waits for the receiver's reply, matched by requestId
+	 * @param namespace
+	 * @param message
+	 * @param timeout - milliseconds
+	 * @param callback - called with the reply message
+	 */
+	public void sendRequest(String namespace, String message, long timeout, ChromecastSessionCallback callback) {
+		this.rpc.request(namespace, message, timeout, callback);
+	}
+	
 	/**
 	 * Join a currently running app with an appId and a session
 	 * @param appId
@@ -139,7 +293,7 @@ public class ChromecastSession
 		this.joinSessionCallback = joinSessionCallback;
 		this.joinInsteadOfConnecting = true;
 		this.lastSessionId = sessionId;
-		this.connectToDevice();
+		this.startApplication();
 	}
 	
 	/**
@@ -160,6 +314,13 @@ public class ChromecastSession
 //				callback.onSuccess();
 //			}
 //		});
+		this.recovering = false;
+		this.recovery.cancel();
+		this.rpc.cancelAll("session_error");
+		this.messageQueue.clear("session_error");
+		this.operations.cancelAll(this, "session_error");
+		this.codec.shutdown();
+		this.chunker.clear();
 		try {
 			Cast.CastApi.stopApplication(mApiClient);
 			mApiClient.disconnect();
@@ -187,20 +348,20 @@ public class ChromecastSession
 		try {
 			MediaInfo mediaInfo = chromecastMediaController.createLoadUrlRequest(contentId, contentType, duration, streamType);
 			
-			mRemoteMediaPlayer.load(mApiClient, mediaInfo, autoPlay, (long)(currentTime * 1000))
-				.setResultCallback(new ResultCallback<RemoteMediaPlayer.MediaChannelResult>() {
+			this.operations.track(this, ChromecastOperationTracker.LOAD, mRemoteMediaPlayer.load(mApiClient, mediaInfo, autoPlay, (long)(currentTime * 1000)),
+				new ResultCallback<RemoteMediaPlayer.MediaChannelResult>() {
 					@Override
 					public void onResult(MediaChannelResult result) {
 						if (result.getStatus().isSuccess()) {
 							System.out.println("Media loaded successfully");
 
-							callback.onSuccess(ChromecastSession.this.createMediaObject());
+							callback.onSuccess(ChromecastSession.this.createMediaObject().toJSONObject());
 						
 						} else {
 							callback.onError("session_error");
 						}
 				    }
-				});
+				}, callback);
     	} catch (IllegalStateException e) {
     		e.printStackTrace();
     		System.out.println("Problem occurred with media during loading");
@@ -241,6 +402,56 @@ public class ChromecastSession
 		chromecastMediaController.seek(seekPosition, resumeState, mApiClient, callback);
 	}
 	
+	/**
+	 * Media API - Times a status request to the receiver and folds it into the round trip estimate
+	 * @param callback - gets the measured round trip in ms
+	 */
+	public void measureRoundTrip(final ChromecastSessionCallback callback) {
+		final long sent = SystemClock.elapsedRealtime();
+		chromecastMediaController.requestStatus(mApiClient, new ChromecastSessionCallback() {
+			@Override
+			void onSuccess(Object object) {
+				long now = SystemClock.elapsedRealtime();
+				long sample = now - sent;
+				long previous = ChromecastSession.this.roundTrip;
+				ChromecastSession.this.roundTrip = previous == 0 ? sample : (previous * 3 + sample) / 4;
+				ChromecastSession.this.roundTripMeasuredAt = now;
+				callback.onSuccess(sample);
+			}
+
+			@Override
+			void onError(String reason) {
+				callback.onError(reason);
+			}
+		});
+	}
+	
+	/**
+	 * @return the smoothed round trip to the receiver in ms, 0 if it was never measured
+	 */
+	public long getRoundTrip() {
+		return this.roundTrip;
+	}
+	
+	/**
+	 * @return ms since the round trip was last measured
+	 */
+	public long getRoundTripAge() {
+		return this.roundTripMeasuredAt == 0 ? Long.MAX_VALUE : SystemClock.elapsedRealtime() - this.roundTripMeasuredAt;
+	}
+	
+	/**
+	 * @return the stream position in ms, extrapolated from the last media status
+	 */
+	public long getApproximateStreamPosition() {
+		return mRemoteMediaPlayer.getApproximateStreamPosition();
+	}
+	
+	public boolean isPlaying() {
+		MediaStatus status = mRemoteMediaPlayer.getMediaStatus();
+		return status != null && status.getPlayerState() == MediaStatus.PLAYER_STATE_PLAYING;
+	}
+	
 	/**
 	 * Media API - Sets the volume on the current playing media object NOT ON THE CHROMECAST DIRECTLY
 	 * @param level
@@ -318,20 +529,51 @@ public class ChromecastSession
 		}
 	}
 	
+	/**
+	 * Launches or joins straight away on a warmed up connection, otherwise once onConnected comes in
+	 */
+	private synchronized void startApplication() {
+		if (this.mApiClient != null && this.mApiClient.isConnected()) {
+			this.onConnected(null);
+		} else if (this.mApiClient == null || !this.mApiClient.isConnecting()) {
+			this.connectToDevice();
+		}
+	}
+	
 	/**
 	 * Launches the application and gets a new session
 	 */
 	private void launchApplication() {
-		Cast.CastApi.launchApplication(mApiClient, this.appId, false)
-			.setResultCallback(launchApplicationResultCallback);
+		this.operations.track(this, ChromecastOperationTracker.LAUNCH, Cast.CastApi.launchApplication(mApiClient, this.appId, false),
+			launchApplicationResultCallback, this.launchCallback);
 	}
 	
 	/**
 	 * Attemps to join an already running session
 	 */
-	private void joinApplication() {
-		Cast.CastApi.joinApplication(this.mApiClient, this.appId, this.lastSessionId)
-			.setResultCallback(joinApplicationResultCallback);
+	private synchronized void joinApplication() {
+		if (this.recovering && this.recoveryJoinPending) {
+			// The last one's result decides what happens next
+			return;
+		}
+		PendingResult<ApplicationConnectionResult> pending = Cast.CastApi.joinApplication(this.mApiClient, this.appId, this.lastSessionId);
+		if (this.recovering) {
+			this.recoveryJoinPending = true;
+			this.operations.trackInternal(this, ChromecastOperationTracker.JOIN, pending, joinApplicationResultCallback, new ChromecastSessionCallback() {
+				@Override
+				void onSuccess(Object object) {
+				}
+				
+				@Override
+				void onError(String reason) {
+					// Timed out or cancelled - onResult won't come
+					ChromecastSession.this.takeRecoveryJoin();
+					ChromecastSession.this.recovery.attemptFailed();
+				}
+			});
+		} else {
+			this.operations.track(this, ChromecastOperationTracker.JOIN, pending, joinApplicationResultCallback, this.joinSessionCallback);
+		}
 	}
 	
 	/**
@@ -341,8 +583,8 @@ public class ChromecastSession
 	 */
 	private void connectRemoteMediaPlayer() throws IllegalStateException, IOException {
 		Cast.CastApi.setMessageReceivedCallbacks(mApiClient, mRemoteMediaPlayer.getNamespace(), mRemoteMediaPlayer);
-		mRemoteMediaPlayer.requestStatus(mApiClient)
-		.setResultCallback(connectRemoteMediaPlayerCallback);
+		this.operations.trackInternal(this, ChromecastOperationTracker.STATUS, mRemoteMediaPlayer.requestStatus(mApiClient),
+			connectRemoteMediaPlayerCallback, null);
 	}
 	
 	
@@ -362,6 +604,7 @@ public class ChromecastSession
 			
 			if (status.isSuccess()) {
 				try {
+					ChromecastSession.this.cacheSessionDescriptor();
 					ChromecastSession.this.launchCallback.onSuccess(ChromecastSession.this);
 					connectRemoteMediaPlayer();
 					ChromecastSession.this.isConnected = true;
@@ -385,14 +628,21 @@ public class ChromecastSession
 		
 			Status status = result.getStatus();
 			
-			if (status.isSuccess()) {
+			ChromecastSessionCallback callback = ChromecastSession.this.joinSessionCallback;
+			if (ChromecastSession.this.takeRecoveryJoin()) {
+				ChromecastSession.this.onRecoveryJoined(result);
+			} else if (callback == null) {
+				// Nobody asked for this join - it's left over from a recovery that was given up on
+				return;
+			} else if (status.isSuccess()) {
 				try {
 					ApplicationMetadata metadata = result.getApplicationMetadata();
 					ChromecastSession.this.sessionId = result.getSessionId();
 					ChromecastSession.this.displayName = metadata.getName();
 					ChromecastSession.this.appImages = metadata.getImages();
+					ChromecastSession.this.cacheSessionDescriptor();
 					
-					ChromecastSession.this.joinSessionCallback.onSuccess(ChromecastSession.this);
+					callback.onSuccess(ChromecastSession.this);
 					connectRemoteMediaPlayer();
 					ChromecastSession.this.isConnected = true;
 				} catch (IllegalStateException e) {
@@ -401,7 +651,7 @@ public class ChromecastSession
 					e.printStackTrace();
 				}
 			} else {
-				ChromecastSession.this.joinSessionCallback.onError(status.toString());
+				callback.onError(status.toString());
 				ChromecastSession.this.isConnected = false;
 			}
 		}
@@ -414,7 +664,9 @@ public class ChromecastSession
 		@Override
 		public void onResult(MediaChannelResult result) {
 			if (result.getStatus().isSuccess()) {
-				ChromecastSession.this.onMediaUpdatedListener.onMediaLoaded(ChromecastSession.this.createMediaObject());
+				if (!ChromecastSession.this.restoreMedia()) {
+					ChromecastSession.this.onMediaUpdatedListener.onMediaLoaded(ChromecastSession.this.createMediaObject());
+				}
 			} else {
 				System.out.println("Failed to request status.");
 			}
@@ -425,15 +677,52 @@ public class ChromecastSession
 	 * Creates a JSON representation of this session
 	 * @return
 	 */
-	public JSONObject createSessionObject() {		
+	public JSONObject createSessionObject() {
+		JSONObject descriptor = this.sessionDescriptor;
+		if (descriptor == null) {
+			descriptor = this.createSessionDescriptor();
+		}
+		
+		JSONObject out = new JSONObject();
+		try {
+			out.put("appId", descriptor.opt("appId"));
+			out.put("appImages", descriptor.opt("appImages"));
+			out.put("sessionId", descriptor.opt("sessionId"));
+			out.put("displayName", descriptor.opt("displayName"));
+			
+			JSONObject cachedReceiver = descriptor.getJSONObject("receiver");
+			JSONObject receiver = new JSONObject();
+			receiver.put("friendlyName", cachedReceiver.opt("friendlyName"));
+			receiver.put("label", cachedReceiver.opt("label"));
+			receiver.put("volume", this.volume);
+			
+			out.put("receiver", receiver);
+			
+		} catch(JSONException e) {
+			
+		}
+		
+		return out;
+	}
+	
+	/**
+	 * Builds the part of the session object that does not change while the app is running - cached once the
+	 * launch / join has completed (see cacheSessionDescriptor)
+	 * @return
+	 */
+	private JSONObject createSessionDescriptor() {
 		JSONObject out = new JSONObject();
 		try {
 			out.put("appId", this.appId);
 		
+			JSONArray appImages = new JSONArray();
 			if (this.appImages != null) {
-				JSONArray appImages = new JSONArray();
 				for(WebImage o : this.appImages) {
-					appImages.put(o.toString());
+					JSONObject image = new JSONObject();
+					image.put("url", o.getUrl().toString());
+					image.put("width", o.getWidth());
+					image.put("height", o.getHeight());
+					appImages.put(image);
 				}
 			}
 			
@@ -445,16 +734,6 @@ public class ChromecastSession
 			receiver.put("friendlyName", this.device.getFriendlyName());
 			receiver.put("label", this.device.getDeviceId());
 			
-			JSONObject volume = new JSONObject();
-			try {
-				volume.put("level", Cast.CastApi.getVolume(mApiClient));
-				volume.put("muted", Cast.CastApi.isMute(mApiClient));
-			} catch(Exception e) {
-				
-			}
-			
-			receiver.put("volume", volume);
-			
 			out.put("receiver", receiver);
 			
 		} catch(JSONException e) {
@@ -465,78 +744,33 @@ public class ChromecastSession
 	}
 	
 	/**
-	 * Creates a JSON representation of the current playing media
-	 * @return
+	 * Caches the session descriptor and receiver volume for the app we just launched / joined
 	 */
-	private JSONObject createMediaObject() {
-		JSONObject out = new JSONObject();
-		JSONObject objInfo = new JSONObject();
-		
-		MediaStatus mediaStatus = mRemoteMediaPlayer.getMediaStatus();
-		if (mediaStatus == null) {
-			return out;
-		}
-		
-		MediaInfo mediaInfo = mediaStatus.getMediaInfo();
+	private void cacheSessionDescriptor() {
+		this.sessionDescriptor = this.createSessionDescriptor();
+		this.refreshVolume();
+	}
+	
+	/**
+	 * Reads the receiver volume and mute state into the volume part of the session object
+	 */
+	private void refreshVolume() {
+		JSONObject volume = new JSONObject();
 		try {
-			out.put("media", objInfo);
-			out.put("mediaSessionId", 1);
-			out.put("sessionId", this.sessionId);
-			out.put("currentTime", mediaStatus.getStreamPosition() / 1000.0);
-			out.put("playbackRate", mediaStatus.getPlaybackRate());
-			out.put("customData", mediaStatus.getCustomData());
-			
-			switch(mediaStatus.getPlayerState()) {
-				case MediaStatus.PLAYER_STATE_BUFFERING:
-					out.put("playerState", "BUFFERING"); break;
-				case MediaStatus.PLAYER_STATE_IDLE:
-					out.put("playerState", "IDLE"); break;
-				case MediaStatus.PLAYER_STATE_PAUSED:
-					out.put("playerState", "PAUSED"); break;
-				case MediaStatus.PLAYER_STATE_PLAYING:
-					out.put("playerState", "PLAYING"); break;
-				case MediaStatus.PLAYER_STATE_UNKNOWN:
-					out.put("playerState", "UNKNOWN"); break;
-			}
-			
-			switch(mediaStatus.getIdleReason()) {
-				case MediaStatus.IDLE_REASON_CANCELED:
-					out.put("idleReason", "canceled"); break;
-				case MediaStatus.IDLE_REASON_ERROR:
-					out.put("idleReason", "error"); break;
-				case MediaStatus.IDLE_REASON_FINISHED:
-					out.put("idleReason", "finished"); break;
-				case MediaStatus.IDLE_REASON_INTERRUPTED:
-					out.put("idleReason", "iterrupted"); break;
-				case MediaStatus.IDLE_REASON_NONE:
-					out.put("idleReason", "none"); break;
-			}
-			
-			JSONObject volume = new JSONObject();
-			volume.put("level", mediaStatus.getStreamVolume());
-			volume.put("muted", mediaStatus.isMute());
-			
-			out.put("volume", volume);
-			
-			try {
-				objInfo.put("duration", mediaInfo.getStreamDuration() / 1000.0);
-				switch(mediaInfo.getStreamType()) {
-					case MediaInfo.STREAM_TYPE_BUFFERED:
-						objInfo.put("streamType", "buffered"); break;
-					case MediaInfo.STREAM_TYPE_LIVE:
-						objInfo.put("streamType", "live"); break;
-					case MediaInfo.STREAM_TYPE_NONE:
-						objInfo.put("streamType", "other"); break;
-				}
-			} catch (Exception e) {
-				
-			}
-			
-		} catch(JSONException e) {
+			volume.put("level", Cast.CastApi.getVolume(mApiClient));
+			volume.put("muted", Cast.CastApi.isMute(mApiClient));
+		} catch(Exception e) {
 			
 		}
-		
-		return out;
+		this.volume = volume;
+	}
+	
+	/**
+	 * Writes out the status of the current playing media
+	 * @return
+	 */
+	private ChromecastMediaUpdate createMediaObject() {
+		return this.mediaStatusWriter.write(mRemoteMediaPlayer.getMediaStatus(), this.sessionId);
 	}
 	
 	
@@ -547,7 +781,11 @@ public class ChromecastSession
 	 * @see com.google.android.gms.common.api.GoogleApiClient.ConnectionCallbacks#onConnected(android.os.Bundle)
 	 */
 	@Override
-	public void onConnected(Bundle connectionHint) {
+	public synchronized void onConnected(Bundle connectionHint) {
+		if (!this.isStarted()) {
+			// Only warmed up - launch / join will carry on from here
+			return;
+		}
 		if (this.joinInsteadOfConnecting) {
 			this.joinApplication();
 		} else {
@@ -562,6 +800,16 @@ public class ChromecastSession
 	 */
 	@Override
 	public void onConnectionSuspended(int cause) {
+		if (!this.isStarted()) {
+			return;
+		}
+		this.rpc.cancelAll("channel_error");
+		this.messageQueue.clear("channel_error");
+		this.operations.cancelAll(this, "channel_error");
+		this.chunker.clear();
+		if (this.startRecovery()) {
+			return;
+		}
 		if (this.onSessionUpdatedListener != null) {
 			this.isConnected = false;
 			this.onSessionUpdatedListener.onSessionUpdated(false, this.createSessionObject());
@@ -576,6 +824,10 @@ public class ChromecastSession
 	 */
 	@Override
 	public void onConnectionFailed(ConnectionResult result) {
+		if (this.recovering) {
+			this.recovery.attemptFailed();
+			return;
+		}
 		if (this.launchCallback != null) {
 			this.isConnected = false;
 			this.launchCallback.onError("channel_error");
@@ -588,7 +840,7 @@ public class ChromecastSession
 	 */
 	@Override
 	public void onApplicationStatusChanged() {
-		if (this.onSessionUpdatedListener != null) {
+		if (this.onSessionUpdatedListener != null && this.isStarted()) {
 			ChromecastSession.this.isConnected = true;
 			this.onSessionUpdatedListener.onSessionUpdated(true, createSessionObject());
 		}
@@ -600,7 +852,8 @@ public class ChromecastSession
 	 */
 	@Override
 	public void onVolumeChanged() {
-		if (this.onSessionUpdatedListener != null) {
+		this.refreshVolume();
+		if (this.onSessionUpdatedListener != null && this.isStarted()) {
 			this.onSessionUpdatedListener.onSessionUpdated(true, createSessionObject());
 		}
 	}
@@ -611,6 +864,18 @@ public class ChromecastSession
 	 */
 	@Override
 	public void onApplicationDisconnected(int errorCode) {
+		if (!this.isStarted()) {
+			return;
+		}
+		this.rpc.cancelAll("session_error");
+		this.messageQueue.clear("session_error");
+		this.operations.cancelAll(this, "session_error");
+		this.chunker.clear();
+		// Anything but a clean stop may just be the network - try to get back in
+		if (errorCode != CastStatusCodes.SUCCESS && this.startRecovery()) {
+			return;
+		}
+		this.codec.shutdown();
 		if (this.onSessionUpdatedListener != null) {
 			this.isConnected = false;
 			this.onSessionUpdatedListener.onSessionUpdated(false, this.createSessionObject());
@@ -634,14 +899,176 @@ public class ChromecastSession
 	}
 	
 	
+	/**
+	 * Starts getting a dropped session back - the connection comes back (by itself or by attemptRecovery),
+	 * onConnected rejoins the same session id and onRecoveryJoined picks up from there
+	 * @return false if there's no session to get back
+	 */
+	private synchronized boolean startRecovery() {
+		if (this.sessionId == null || this.recovering) {
+			return this.recovering;
+		}
+		this.recovering = true;
+		this.isConnected = false;
+		this.joinInsteadOfConnecting = true;
+		this.lastSessionId = this.sessionId;
+		
+		this.recovery.start(mRemoteMediaPlayer.getMediaStatus(), mRemoteMediaPlayer.getApproximateStreamPosition());
+		if (this.onSessionUpdatedListener != null) {
+			this.onSessionUpdatedListener.onSessionReconnecting(this.sessionId, 0);
+		}
+		return true;
+	}
+	
+	private synchronized void attemptRecovery(int attempt) {
+		if (!this.recovering) {
+			return;
+		}
+		if (this.onSessionUpdatedListener != null) {
+			this.onSessionUpdatedListener.onSessionReconnecting(this.sessionId, attempt);
+		}
+		try {
+			if (this.mApiClient.isConnected()) {
+				this.joinApplication();
+			} else if (!this.mApiClient.isConnecting()) {
+				this.mApiClient.connect();
+			}
+		} catch(Exception e) {
+			this.logger.log(ChromecastLog.WARN, "Recovery attempt %d failed: %s", attempt, e);
+			this.recovery.attemptFailed();
+		}
+	}
+	
+	/**
+	 * @return true if a recovery join was out - it's over now
+	 */
+	private synchronized boolean takeRecoveryJoin() {
+		boolean pending = this.recoveryJoinPending;
+		this.recoveryJoinPending = false;
+		return pending;
+	}
+	
+	private void onRecoveryJoined(ApplicationConnectionResult result) {
+		Status status = result.getStatus();
+		if (!status.isSuccess()) {
+			if (status.getStatusCode() == CastStatusCodes.APPLICATION_NOT_RUNNING) {
+				// The receiver app was stopped meanwhile - nothing left to rejoin
+				this.recovery.cancel();
+				this.giveUpRecovery();
+			} else {
+				this.recovery.attemptFailed();
+			}
+			return;
+		}
+		
+		synchronized (this) {
+			if (!this.recovering) {
+				// Recovery was given up on or cancelled while this join was out
+				return;
+			}
+			this.recovering = false;
+			this.recovery.succeeded();
+			this.isConnected = true;
+		}
+		try {
+			ApplicationMetadata metadata = result.getApplicationMetadata();
+			this.displayName = metadata.getName();
+			this.appImages = metadata.getImages();
+			this.cacheSessionDescriptor();
+			// The channels went with the old connection
+			for (String namespace : this.messageNamespaces) {
+				Cast.CastApi.setMessageReceivedCallbacks(mApiClient, namespace, this);
+			}
+			this.connectRemoteMediaPlayer();
+		} catch (IllegalStateException e) {
+			this.logger.log(ChromecastLog.WARN, "Couldn't reopen the channels of %s: %s", this.sessionId, e);
+		} catch (IOException e) {
+			this.logger.log(ChromecastLog.WARN, "Couldn't reopen the channels of %s: %s", this.sessionId, e);
+		}
+		if (this.onSessionUpdatedListener != null) {
+			this.onSessionUpdatedListener.onSessionReconnected(this.createSessionObject());
+		}
+	}
+	
+	/**
+	 * Out of attempts - the session ends like it always did
+	 */
+	private void giveUpRecovery() {
+		GoogleApiClient client;
+		synchronized (this) {
+			if (!this.recovering) {
+				return;
+			}
+			this.recovering = false;
+			this.joinInsteadOfConnecting = false;
+			client = this.mApiClient;
+		}
+		this.recovery.forgetMedia();
+		this.codec.shutdown();
+		// Nothing may come back in on this connection - a late onConnected would join a session that's over
+		try {
+			client.unregisterConnectionCallbacks(this);
+			client.unregisterConnectionFailedListener(this);
+			client.disconnect();
+		} catch(Exception e) {
+			this.logger.log(ChromecastLog.DEBUG, "Disconnect after giving up on %s failed: %s", this.sessionId, e);
+		}
+		if (this.onSessionUpdatedListener != null) {
+			this.onSessionUpdatedListener.onSessionUpdated(false, this.createSessionObject());
+		}
+	}
+	
+	/**
+	 * Loads what was playing before the connection dropped again, if the receiver lost it meanwhile
+	 * @return true if the media is being restored
+	 */
+	private boolean restoreMedia() {
+		MediaInfo mediaInfo = this.recovery.getMediaInfo();
+		this.recovery.forgetMedia();
+		MediaStatus status = mRemoteMediaPlayer.getMediaStatus();
+		if (mediaInfo == null || (status != null && status.getPlayerState() != MediaStatus.PLAYER_STATE_IDLE)) {
+			return false;
+		}
+		
+		this.operations.trackInternal(this, ChromecastOperationTracker.LOAD, mRemoteMediaPlayer.load(mApiClient, mediaInfo, this.recovery.wasPlaying(), this.recovery.getPosition()),
+			new ResultCallback<RemoteMediaPlayer.MediaChannelResult>() {
+				@Override
+				public void onResult(MediaChannelResult result) {
+					if (!result.getStatus().isSuccess()) {
+						ChromecastSession.this.logger.log(ChromecastLog.WARN, "Failed to restore media on %s: %s",
+								ChromecastSession.this.sessionId, result.getStatus());
+					}
+					ChromecastSession.this.onMediaUpdatedListener.onMediaLoaded(ChromecastSession.this.createMediaObject());
+				}
+			}, null);
+		return true;
+	}
+	
+	
 	/// GETTERS
 	public String getSessionId() {
 		return this.sessionId;
 	}
+	
+	public String getRouteId() {
+		return this.routeInfo.getId();
+	}
 
 
 	@Override
 	public void onMessageReceived(CastDevice castDevice, String namespace, String message) {
+		this.codec.receive(namespace, message);
+	}
+	
+	/**
+	 * Passes a (decoded) incoming message on to whoever is waiting for it
+	 * @param namespace
+	 * @param message
+	 */
+	private void deliverMessage(String namespace, String message) {
+		if (this.rpc.onMessageReceived(namespace, message)) {
+			return;
+		}
 		if (this.onSessionUpdatedListener != null) {
 			this.onSessionUpdatedListener.onMessage(this, namespace, message);
 		}
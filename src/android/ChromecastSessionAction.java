@@ -0,0 +1,13 @@
+package acidhax.cordova.chromecast;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/*
+ * An action that works on a single session - run directly it gets the default session,
+ * through sessionCommand it gets each session the command targets.
+ */
+public abstract class ChromecastSessionAction {
+	abstract void execute(ChromecastSession session, JSONArray args, CallbackContext callbackContext) throws JSONException;
+}
@@ -0,0 +1,160 @@
+package acidhax.cordova.chromecast;
+
+import java.util.Random;
+
+import com.google.android.gms.cast.MediaInfo;
+import com.google.android.gms.cast.MediaStatus;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/*
+ * Paces the attempts to get a dropped session back. There is only ever one attempt going - the next one is
+ * only scheduled once the session reports the last one failed. The wait is BASE_DELAY at first, doubling up to
+ * MAX_DELAY, with up to half of each delay taken off at random so a room full of senders doesn't retry in
+ * lockstep after a router restart. After MAX_ATTEMPTS the session is given up on.
+ * Also remembers what was playing when the connection dropped, in case the receiver lost it in the meantime.
+ */
+public class ChromecastSessionRecovery {
+	private static final long BASE_DELAY = 1000;
+	private static final long MAX_DELAY = 30000;
+	private static final int MAX_ATTEMPTS = 8;
+	
+	public interface Listener {
+		/**
+		 * Time for another try - reconnect if needed, then rejoin the session, and call attemptFailed if that
+		 * doesn't work out
+		 * @param attempt - 1 based
+		 */
+		void onRecoveryAttempt(int attempt);
+		
+		/**
+		 * Out of attempts
+		 */
+		void onRecoveryFailed();
+	}
+	
+	private Listener listener;
+	private Handler handler = new Handler(Looper.getMainLooper());
+	private Random random = new Random();
+	
+	private int attempt = 0;
+	private boolean running = false;
+	
+	// Read from the session's result callbacks, outside the lock
+	private volatile MediaInfo mediaInfo = null;
+	private volatile long position = 0;
+	private volatile boolean playing = false;
+	
+	private Runnable next = new Runnable() {
+		public void run() {
+			ChromecastSessionRecovery.this.fire();
+		}
+	};
+	
+	public ChromecastSessionRecovery(Listener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Starts trying to recover, unless that's already going on
+	 * @param status   - the last media status, may be null
+	 * @param position - where the media was at, in ms
+	 * @return false if recovery was already running
+	 */
+	public synchronized boolean start(MediaStatus status, long position) {
+		if (this.running) {
+			return false;
+		}
+		this.running = true;
+		this.attempt = 0;
+		
+		this.mediaInfo = status != null ? status.getMediaInfo() : null;
+		this.position = position;
+		this.playing = status != null && (status.getPlayerState() == MediaStatus.PLAYER_STATE_PLAYING
+				|| status.getPlayerState() == MediaStatus.PLAYER_STATE_BUFFERING);
+		
+		this.handler.postDelayed(this.next, this.delay());
+		return true;
+	}
+	
+	/**
+	 * The session is back - no more attempts
+	 */
+	public synchronized void succeeded() {
+		this.running = false;
+		this.handler.removeCallbacks(this.next);
+	}
+	
+	/**
+	 * Stops without telling the listener - the session is going away anyway
+	 */
+	public synchronized void cancel() {
+		this.running = false;
+		this.mediaInfo = null;
+		this.handler.removeCallbacks(this.next);
+	}
+	
+	/**
+	 * The last attempt is over without getting the session back - schedules the next one
+	 */
+	public synchronized void attemptFailed() {
+		if (!this.running) {
+			return;
+		}
+		this.handler.removeCallbacks(this.next);
+		this.handler.postDelayed(this.next, this.delay());
+	}
+	
+	public synchronized boolean isRunning() {
+		return this.running;
+	}
+	
+	/**
+	 * @return what was loaded when the connection dropped, or null
+	 */
+	public MediaInfo getMediaInfo() {
+		return this.mediaInfo;
+	}
+	
+	public long getPosition() {
+		return this.position;
+	}
+	
+	public boolean wasPlaying() {
+		return this.playing;
+	}
+	
+	/**
+	 * Done with the remembered media - it was restored, or didn't need to be
+	 */
+	public void forgetMedia() {
+		this.mediaInfo = null;
+	}
+	
+	private void fire() {
+		int attempt;
+		synchronized (this) {
+			if (!this.running) {
+				return;
+			}
+			if (this.attempt >= MAX_ATTEMPTS) {
+				this.running = false;
+				attempt = -1;
+			} else {
+				attempt = ++this.attempt;
+			}
+		}
+		
+		if (attempt < 0) {
+			this.listener.onRecoveryFailed();
+		} else {
+			this.listener.onRecoveryAttempt(attempt);
+		}
+	}
+	
+	private long delay() {
+		long delay = Math.min(MAX_DELAY, BASE_DELAY << Math.min(this.attempt, 16));
+		return delay / 2 + (long) (this.random.nextDouble() * (delay / 2));
+	}
+}
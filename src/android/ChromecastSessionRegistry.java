@@ -0,0 +1,163 @@
+package acidhax.cordova.chromecast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/*
+ * Every running session, by session id, plus named groups of them. The default session is the one the
+ * single-session API (requestSession, commands without a target) works with - it is set while it's still
+ * launching, before it has a session id.
+ * Commands address sessions with a target: null / "" for the default session, a session id, "group:<name>"
+ * for the members of a group or "*" for all of them.
+ * When the default session ends, the most recently added session that is left takes over.
+ */
+public class ChromecastSessionRegistry {
+	public static final String ALL = "*";
+	public static final String GROUP_PREFIX = "group:";
+	
+	private ConcurrentHashMap<String, ChromecastSession> sessions = new ConcurrentHashMap<String, ChromecastSession>();
+	// The same sessions, oldest first - guarded by this
+	private ArrayList<ChromecastSession> added = new ArrayList<ChromecastSession>();
+	private ConcurrentHashMap<String, Set<String>> groups = new ConcurrentHashMap<String, Set<String>>();
+	private volatile ChromecastSession defaultSession;
+	
+	/**
+	 * Adds a session that has a session id
+	 * @param session
+	 */
+	public synchronized void put(ChromecastSession session) {
+		ChromecastSession previous = this.sessions.put(session.getSessionId(), session);
+		if (previous != null) {
+			this.added.remove(previous);
+		}
+		this.added.add(session);
+	}
+	
+	/**
+	 * @param sessionId
+	 * @return the session that was removed, or null
+	 */
+	public synchronized ChromecastSession remove(String sessionId) {
+		ChromecastSession session = this.sessions.remove(sessionId);
+		if (session != null) {
+			this.added.remove(session);
+			if (session == this.defaultSession) {
+				this.defaultSession = this.latest();
+			}
+		}
+		return session;
+	}
+	
+	/**
+	 * Forgets a session that never got a session id
+	 * @param session
+	 */
+	public synchronized void discard(ChromecastSession session) {
+		if (session.getSessionId() != null) {
+			this.remove(session.getSessionId());
+		} else if (session == this.defaultSession) {
+			this.defaultSession = this.latest();
+		}
+	}
+	
+	/**
+	 * @return the most recently added session, for the single-session API to carry on with - or null
+	 */
+	private ChromecastSession latest() {
+		return this.added.isEmpty() ? null : this.added.get(this.added.size() - 1);
+	}
+	
+	public ChromecastSession get(String sessionId) {
+		return sessionId == null ? null : this.sessions.get(sessionId);
+	}
+	
+	/**
+	 * @param routeId
+	 * @return the session running on a receiver, or null
+	 */
+	public ChromecastSession getByRoute(String routeId) {
+		for (ChromecastSession session : this.sessions.values()) {
+			if (session.getRouteId().equals(routeId)) {
+				return session;
+			}
+		}
+		ChromecastSession session = this.defaultSession;
+		return session != null && session.getRouteId().equals(routeId) ? session : null;
+	}
+	
+	public ChromecastSession getDefault() {
+		return this.defaultSession;
+	}
+	
+	public synchronized void setDefault(ChromecastSession session) {
+		this.defaultSession = session;
+	}
+	
+	/**
+	 * @return true if there's no session at all, not even one launching
+	 */
+	public boolean isEmpty() {
+		return this.sessions.isEmpty() && this.defaultSession == null;
+	}
+	
+	/**
+	 * Sets the members of a group - an empty list removes it
+	 * @param name
+	 * @param sessionIds
+	 * @throws JSONException
+	 */
+	public void setGroup(String name, JSONArray sessionIds) throws JSONException {
+		Set<String> members = Collections.synchronizedSet(new HashSet<String>());
+		for (int i = 0; i < sessionIds.length(); i++) {
+			members.add(sessionIds.getString(i));
+		}
+		if (members.isEmpty()) {
+			this.groups.remove(name);
+		} else {
+			this.groups.put(name, members);
+		}
+	}
+	
+	/**
+	 * @param target
+	 * @return the sessions a command is for - empty if there are none
+	 */
+	public List<ChromecastSession> resolve(String target) {
+		ArrayList<ChromecastSession> out = new ArrayList<ChromecastSession>();
+		if (target == null || target.length() == 0) {
+			ChromecastSession session = this.defaultSession;
+			if (session != null) {
+				out.add(session);
+			}
+		} else if (target.equals(ALL)) {
+			synchronized (this) {
+				out.addAll(this.added);
+			}
+		} else if (target.startsWith(GROUP_PREFIX)) {
+			Set<String> members = this.groups.get(target.substring(GROUP_PREFIX.length()));
+			if (members != null) {
+				synchronized (members) {
+					for (String sessionId : members) {
+						ChromecastSession session = this.sessions.get(sessionId);
+						if (session != null) {
+							out.add(session);
+						}
+					}
+				}
+			}
+		} else {
+			ChromecastSession session = this.sessions.get(target);
+			if (session != null) {
+				out.add(session);
+			}
+		}
+		return out;
+	}
+}
@@ -280,5 +280,89 @@ exports.init = function() {
     });
     
   });
+
+  // The same updates ChromecastDeltaEncoderTest (benchmarks/src/test) checks the native encoder writes
+  describe('chrome.cast._ versioned updates', function() {
+
+    var sessionId = 'delta-test';
+    var requested;
+
+    var sessionUpdates = {
+      full: '{"data":{"appId":"A","displayName":"One","statusText":"x"},"sessionId":"delta-test","version":1,"full":true}',
+      changed: '{"changes":{"displayName":"Two"},"sessionId":"delta-test","version":2,"full":false}',
+      removed: '{"changes":{},"removed":["statusText"],"sessionId":"delta-test","version":3,"full":false}',
+      // version 4 - {"changes":{"statusText":"y"}} - never arrives
+      afterGap: '{"changes":{"displayName":"Three"},"sessionId":"delta-test","version":5,"full":false}',
+      resync: '{"data":{"appId":"A","displayName":"Three","statusText":"y"},"sessionId":"delta-test","version":6,"full":true}'
+    };
+    var mediaUpdates = {
+      full: '{"data":{"media":{"duration":596,"streamType":"buffered"},"mediaSessionId":1,"sessionId":"delta-test","currentTime":0,"playbackRate":1,"playerState":"PLAYING","idleReason":"none","volume":{"level":1,"muted":false}},"sessionId":"delta-test","version":1,"full":true}',
+      changed: '{"changes":{"currentTime":10.5},"sessionId":"delta-test","version":2,"full":false}'
+    };
+
+    beforeEach(function() {
+      requested = [];
+      spyOn(cordova, 'exec').and.callFake(function(success, error, service, action, args) {
+        requested.push(action);
+      });
+      spyOn(chrome.cast.Session.prototype, '_update').and.callThrough();
+      spyOn(chrome.cast.media.Media.prototype, '_update').and.callThrough();
+    });
+
+    function lastSession() {
+      var calls = chrome.cast.Session.prototype._update.calls;
+      return calls.count() ? calls.mostRecent().args[1] : null;
+    }
+
+    function lastMedia() {
+      var calls = chrome.cast.media.Media.prototype._update.calls;
+      return calls.count() ? calls.mostRecent().args[0] : null;
+    }
+
+    it('applies a full update', function() {
+      chrome.cast._.sessionJoined({ sessionId: sessionId, appId: 'A', displayName: 'One', receiver: { label: 'delta', friendlyName: 'Delta' } });
+      chrome.cast._.sessionUpdated(true, JSON.parse(sessionUpdates.full));
+      expect(lastSession()).toEqual({ appId: 'A', displayName: 'One', statusText: 'x' });
+    });
+
+    it('applies a changed field', function() {
+      chrome.cast._.sessionUpdated(true, JSON.parse(sessionUpdates.changed));
+      expect(lastSession()).toEqual({ appId: 'A', displayName: 'Two', statusText: 'x' });
+    });
+
+    it('applies a removed field', function() {
+      chrome.cast._.sessionUpdated(true, JSON.parse(sessionUpdates.removed));
+      expect(lastSession()).toEqual({ appId: 'A', displayName: 'Two' });
+    });
+
+    it('asks for a full update after a version gap', function() {
+      chrome.cast._.sessionUpdated(true, JSON.parse(sessionUpdates.afterGap));
+      expect(lastSession()).toBeNull();
+      expect(requested).toEqual(['requestFullUpdate']);
+
+      // Nothing is applied, or asked for again, until the full update comes
+      chrome.cast._.sessionUpdated(true, JSON.parse(sessionUpdates.afterGap));
+      expect(lastSession()).toBeNull();
+      expect(requested.length).toEqual(1);
+
+      chrome.cast._.sessionUpdated(true, JSON.parse(sessionUpdates.resync));
+      expect(lastSession()).toEqual({ appId: 'A', displayName: 'Three', statusText: 'y' });
+    });
+
+    it('keeps media versions apart from session versions', function() {
+      chrome.cast._.mediaLoaded({ sessionId: sessionId, mediaSessionId: 1, volume: { level: 1, muted: false } });
+      chrome.cast._.mediaUpdated(JSON.parse(mediaUpdates.full));
+      chrome.cast._.mediaUpdated(JSON.parse(mediaUpdates.changed));
+      expect(lastMedia().currentTime).toEqual(10.5);
+      expect(lastMedia().playerState).toEqual('PLAYING');
+      expect(requested).toEqual([]);
+
+      // The session is still at version 6
+      chrome.cast._.sessionUpdated(true, { changes: { statusText: 'z' }, sessionId: sessionId, version: 7, full: false });
+      expect(lastSession()).toEqual({ appId: 'A', displayName: 'Three', statusText: 'z' });
+      expect(requested).toEqual([]);
+    });
+
+  });
 };
 